@@ -0,0 +1,45 @@
+package logic;
+
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.enums.Symbol;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of {@link Ai#azione} for the difficulties that follow fixed rules. EXTREME and MONTE_CARLO
+ * always use their whole time budget, their searches are measured by {@link logic.search.RicercaBenchmark}.
+ * The recording of the {@link logic.metriche.Metriche} is off, so only the logic of the difficulty is measured.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AiBenchmark {
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10"})
+    private int size;
+    @Param
+    private CheckType checkType;
+    @Param({"EASY", "MEDIUM", "HARD"})
+    private Difficulty difficulty;
+
+    private GameState stato;
+    private Ai ai;
+
+    @Setup
+    public void prepara() {
+        stato = Posizioni.metaPartita(size, checkType);
+        ai = new Ai(difficulty, Symbol.X, 0);
+        ai.setRandom(new SplittableRandom(1));
+        ai.setMetriche(false);
+    }
+
+    @Benchmark
+    public int azione() {
+        return ai.azione(stato);
+    }
+}
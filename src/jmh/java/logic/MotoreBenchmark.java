@@ -0,0 +1,68 @@
+package logic;
+
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the checks done after every move, on a half played board of every size and {@link CheckType}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MotoreBenchmark {
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10"})
+    private int size;
+    @Param
+    private CheckType checkType;
+
+    private GameState stato;
+
+    @Setup
+    public void prepara() {
+        stato = Posizioni.metaPartita(size, checkType);
+    }
+
+    /**
+     * Incremental check of the last move, the one done during a game
+     */
+    @Benchmark
+    public Object checkUltimaMossa() {
+        return CheckTable.check(stato.getLastMove(), Symbol.X, stato);
+    }
+
+    /**
+     * Check of the whole board, the one done when the last move is not known
+     */
+    @Benchmark
+    public Object checkCompleto() {
+        return CheckTable.check(Symbol.X, stato);
+    }
+
+    @Benchmark
+    public List<Integer> caselleLibere() {
+        return GameFunctions.getAvailablePositions(stato);
+    }
+
+    @Benchmark
+    public int mossaVincente() {
+        return stato.mossaVincente(Symbol.X);
+    }
+
+    /**
+     * A move and its undo, the step of every search
+     */
+    @Benchmark
+    public long mossaEUndo() {
+        stato.move(stato.getLibera(0));
+        long hash = stato.getHash();
+        stato.undo();
+        return hash;
+    }
+}
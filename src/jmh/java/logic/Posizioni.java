@@ -0,0 +1,35 @@
+package logic;
+
+import logic.enums.CheckType;
+
+import java.util.SplittableRandom;
+
+/**
+ * Positions shared by the benchmarks: random games from a fixed seed stopped halfway, so every
+ * run measures the same boards and nobody has won yet.
+ */
+public final class Posizioni {
+    private static final long SEME = 42;
+
+    private Posizioni() {
+    }
+
+    /**
+     * @return a game with half the cells played and no line completed, X to move
+     */
+    public static GameState metaPartita(int size, CheckType checkType) {
+        var random = new SplittableRandom(SEME);
+        var stato = new GameState(size, checkType);
+        int mosse = size * size / 2 & ~1;
+        int tentativi = 0;
+        while (stato.getNumeroMosse() < mosse && tentativi++ < 10_000) {
+            var simbolo = stato.getTurno();
+            int cella = stato.casellaCasuale(random);
+            stato.move(cella);
+            // una mossa che chiude la partita non va bene, se ne prova un'altra
+            if (stato.haVinto(simbolo, cella))
+                stato.undo();
+        }
+        return stato;
+    }
+}
@@ -0,0 +1,63 @@
+package logic.search;
+
+import logic.GameState;
+import logic.Posizioni;
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of the searches behind EXTREME and MONTE_CARLO with a fixed amount of work instead of
+ * a time budget: a negamax at a fixed depth with an empty transposition table, and a Monte Carlo
+ * search with a fixed number of playouts on one thread. Every call is the same cold search: before it,
+ * out of the measure, the position is rebuilt, the table is emptied and the negamax (killers and history)
+ * and the Monte Carlo tree, which would be reused on the same position, are new.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RicercaBenchmark {
+    private static final int PROFONDITA = 4;
+    private static final int PLAYOUT = 2_000;
+
+    @Param({"3", "4", "5", "6", "7", "8", "9", "10"})
+    private int size;
+    @Param
+    private CheckType checkType;
+
+    private GameState stato;
+    private TranspositionTable tabella;
+    private Negamax negamax;
+    private Mcts mcts;
+
+    @Setup
+    public void prepara() {
+        tabella = new TranspositionTable(1);
+    }
+
+    @Setup(Level.Invocation)
+    public void svuota() {
+        // anche la posizione è nuova: dopo una ricerca le celle libere sono nello stesso insieme ma in un altro ordine
+        stato = Posizioni.metaPartita(size, checkType);
+        tabella.clear();
+        negamax = new Negamax(tabella);
+        mcts = new Mcts(1, PLAYOUT);
+        mcts.setRandom(new SplittableRandom(1));
+    }
+
+    @Benchmark
+    public RisultatoRicerca negamax() {
+        return negamax.cerca(stato, Symbol.X, PROFONDITA);
+    }
+
+    @Benchmark
+    public RisultatoMcts monteCarlo() {
+        return mcts.cerca(stato, Symbol.X, 0);
+    }
+}
@@ -0,0 +1,96 @@
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.torneo.Arena;
+import logic.torneo.Configurazione;
+import logic.torneo.Risultati;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Headless AI-vs-AI tournament, without any Swing component. For example:
+ * <pre>
+ * java -cp tris.jar Torneo --partite 100000 --size 3-6 --difficolta EASY,MEDIUM,HARD
+ * </pre>
+ * Options, all optional:
+ * <ul>
+ *     <li><code>--partite</code> games of every pair on every check type and size (1000)</li>
+ *     <li><code>--size</code> board sizes, <code>min-max</code> or a single size (2-10)</li>
+ *     <li><code>--difficolta</code> difficulties separated by commas (EASY,MEDIUM,HARD)</li>
+ *     <li><code>--modalita</code> check types separated by commas (all of them)</li>
+ *     <li><code>--thread</code> threads that play (all the cores)</li>
+ *     <li><code>--seme</code> seed of the random moves (random)</li>
+ *     <li><code>--tempo</code> milliseconds of a move of EXTREME and MONTE_CARLO (the one of the difficulty)</li>
+ *     <li><code>--tt</code> megabytes of the transposition table of every thread (4)</li>
+ * </ul>
+ * It prints the points of every difficulty (row) against every other (column), a win is 1
+ * and a tie 0.5, then the wins, ties and losses of every pair and the games per second.
+ */
+public class Torneo {
+    public static void main(String[] args) throws InterruptedException {
+        var opzioni = leggiOpzioni(args);
+        var size = opzioni.getOrDefault("size", "2-10").split("-");
+        var configurazione = new Configurazione(
+                lista(opzioni.get("difficolta"), Difficulty::valueOf, List.of(Difficulty.EASY, Difficulty.MEDIUM, Difficulty.HARD)),
+                lista(opzioni.get("modalita"), CheckType::valueOf, List.of(CheckType.values())),
+                Integer.parseInt(size[0]),
+                Integer.parseInt(size[size.length - 1]),
+                Long.parseLong(opzioni.getOrDefault("partite", "1000")),
+                Integer.parseInt(opzioni.getOrDefault("thread", String.valueOf(Runtime.getRuntime().availableProcessors()))),
+                Long.parseLong(opzioni.getOrDefault("seme", String.valueOf(System.nanoTime()))),
+                Long.parseLong(opzioni.getOrDefault("tempo", "0")),
+                Integer.parseInt(opzioni.getOrDefault("tt", "4")));
+
+        System.out.printf("Torneo: %d partite su %d thread%n", configurazione.partiteTotali(), configurazione.thread());
+        var risultati = new Arena(configurazione).gioca();
+        stampa(configurazione.difficolta(), risultati);
+    }
+
+    private static void stampa(List<Difficulty> difficolta, Risultati risultati) {
+        System.out.printf("%n%-12s", "");
+        for (var colonna : difficolta)
+            System.out.printf("%12s", colonna);
+        System.out.println();
+        for (var riga : difficolta) {
+            System.out.printf("%-12s", riga);
+            for (var colonna : difficolta)
+                System.out.printf("%12.3f", risultati.punteggio(riga, colonna));
+            System.out.println();
+        }
+
+        System.out.printf("%n%-25s %12s %12s %12s%n", "", "vittorie", "pareggi", "sconfitte");
+        for (int i = 0; i < difficolta.size(); i++)
+            for (int j = i; j < difficolta.size(); j++) {
+                var a = difficolta.get(i);
+                var b = difficolta.get(j);
+                System.out.printf("%-25s %12d %12d %12d%n", a + " - " + b,
+                        risultati.conta(a, b, Risultati.VITTORIA),
+                        risultati.conta(a, b, Risultati.PAREGGIO),
+                        risultati.conta(a, b, Risultati.SCONFITTA));
+            }
+
+        System.out.printf("%n%d partite in %.1f s, %.0f partite/s, %.1f mosse a partita%n",
+                risultati.getPartite(), risultati.getNanos() / 1e9,
+                risultati.partiteAlSecondo(), risultati.lunghezzaMedia());
+    }
+
+    //--chiave valore
+    private static Map<String, String> leggiOpzioni(String[] args) {
+        Map<String, String> opzioni = new HashMap<>();
+        for (int i = 0; i < args.length; i += 2) {
+            if (!args[i].startsWith("--") || i + 1 >= args.length)
+                throw new IllegalArgumentException("Opzione non valida: " + Arrays.toString(args));
+            opzioni.put(args[i].substring(2), args[i + 1]);
+        }
+        return opzioni;
+    }
+
+    private static <T> List<T> lista(String valore, Function<String, T> converti, List<T> predefinita) {
+        if (valore == null)
+            return predefinita;
+        return Arrays.stream(valore.split(",")).map(String::trim).map(String::toUpperCase).map(converti).toList();
+    }
+}
@@ -1,22 +1,27 @@
 package logic;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import logic.enums.*;
+import logic.metriche.Metriche;
+import logic.search.Mcts;
+import logic.search.Negamax;
+import logic.search.RicercaParallela;
+import logic.search.RisultatoMcts;
+import logic.search.RisultatoParallelo;
+import logic.search.Tabella4x4;
+import logic.search.TabellaPerfetta;
+import logic.search.TranspositionTable;
 import lombok.*;
 
-import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.random.RandomGenerator;
 
-import static logic.GameFunctions.convertCaselleToChar;
-import static logic.GameFunctions.cronologiaAi;
-import static logic.enums.ParamTabella.*;
-import static logic.enums.Difficulty.EXTREME;
-import static logic.enums.ReturnTurno.*;
-import static logic.enums.Symbol.*;
-import static ui.UiApplication.cronologiaPlayer;
 
 /**
  * Represents an Artificial Intelligence (AI) player in a game.
  * The Ai class simulates gameplay actions based on a specified difficulty level
  * and a given symbol. It uses its difficulty to determine its responses when performing
- * actions on a list of game cells represented by {@link Casella}.
+ * actions on a headless {@link GameState}, so no Swing component is created while it thinks.
  * <br>
  * <br>
  * <b>This class provides</b>:
@@ -29,6 +34,8 @@ import static ui.UiApplication.cronologiaPlayer;
  * - EASY: Makes random moves from available positions.
  * - MEDIUM: Placeholder for custom logic for medium difficulty.
  * - HARD: Placeholder for custom logic for hard difficulty.
+ * - EXTREME: Perfect-play tables on 3x3 and 4x4, negamax search with alpha-beta pruning on the other boards.
+ * - MONTE_CARLO: Monte Carlo tree search with random playouts, see {@link Mcts}.
  */
 @Data
 @NoArgsConstructor
@@ -44,40 +51,102 @@ public class Ai {
         this.symbolIndex = symbolIndex;
         this.difficulty = difficulty;
     }
-    private static List<Integer> caselleVuote = new ArrayList<>();
-    private static List<Casella> caselleVere = new ArrayList<>();
-    private static CheckType checkType = CheckType.ALL;
-    public static int angoloCasuale = (int) (Math.random() * 4);
-    //returns the index of the Casella to remove
-    public int azione(List<Casella> caselle, CheckType checkTypePass){
-        //Per ogni casella che è vuota (e per sicurezza si controlla anche che la variabile Usata sia false):
-        // aggiungo a una List di Integer l'indice della casella vuota così che l'Ai può lavorare con gli indici
-        caselleVuote = GameFunctions.getAvailablePositions(caselle);
-        checkType = checkTypePass;
-        caselleVere = caselle;
-        //attacca per primo
-        if(!passive && caselleVuote.isEmpty() && difficulty != EXTREME)
-            return rispostaExtrema();
 
+    /**
+     * Copy of the settings as they are now, for a move searched on another thread: the setters of this AI
+     * do not change the copy. The copy shares the search of this AI ({@link RicercaParallela} or {@link Mcts}),
+     * so the table and the tree still pass from a move to the next.
+     */
+    public Ai copia() {
+        var copia = new Ai(difficulty, simbolo, symbolIndex);
+        copia.passive = passive;
+        copia.random = random;
+        copia.tempoMossa = tempoMossa;
+        copia.metriche = metriche;
+        if (difficulty == Difficulty.EXTREME) {
+            if (ricerca == null)
+                ricerca = new RicercaParallela(TranspositionTable.getCondivisa());
+            copia.ricerca = ricerca;
+        }
+        if (difficulty == Difficulty.MONTE_CARLO) {
+            if (mcts == null)
+                mcts = new Mcts();
+            copia.mcts = mcts;
+        }
+        return copia;
+    }
+    //stato della partita su cui l'Ai sta ragionando
+    @JsonIgnore
+    private GameState stato;
+    //ricerca su tutti i core, creata alla prima mossa che ne ha bisogno
+    @JsonIgnore
+    private RicercaParallela ricerca;
+    //risultato dell'ultima ricerca fatta, null se non ha mai cercato
+    @JsonIgnore
+    private RisultatoParallelo ultimaRicerca;
+    @JsonIgnore
+    private Mcts mcts;
+    //risultato dell'ultima ricerca Monte Carlo, null se non ha mai cercato
+    @JsonIgnore
+    private RisultatoMcts ultimaSimulazione;
+    //generatore delle mosse casuali, null per usare quello del thread corrente
+    @JsonIgnore
+    private RandomGenerator random;
+    //tempo di una mossa in millisecondi, 0 per usare quello della difficoltà
+    @JsonIgnore
+    private long tempoMossa;
+    //annulla la ricerca della mossa in corso, vedi azione(GameState, AtomicBoolean)
+    @JsonIgnore
+    private AtomicBoolean interruzione;
+    //false per non registrare le mosse nelle Metriche, come nel torneo che le conta da sé
+    @JsonIgnore
+    private boolean metriche = true;
+
+    /**
+     * Decides the next move on the given game state. The state is used to simulate the moves
+     * but every simulated move is undone, so it is left as it was received.
+     * The time taken is recorded in the {@link Metriche}, unless {@link #isMetriche()} is false.
+     *
+     * @param statoPartita current state of the game, with the active {@link CheckType}
+     * @return the index of the cell to play
+     */
+    public int azione(GameState statoPartita){
+        return azione(statoPartita, new AtomicBoolean());
+    }
+
+    /**
+     * Like {@link #azione(GameState)}, but EXTREME and MONTE_CARLO stop early, with the best move found
+     * so far, when another thread sets the flag. See {@link EsecutoreAi}.
+     *
+     * @param interruzione flag that cancels the search of this move
+     */
+    public int azione(GameState statoPartita, AtomicBoolean interruzione){
+        // le caselle vuote sono tenute dallo stato, l'Ai lavora direttamente sugli indici
+        stato = statoPartita;
+        this.interruzione = interruzione;
+
+        long inizio = System.nanoTime();
         //in base alla difficoltà dell Ai risponde in modo adeguato
-        return switch (difficulty){
+        int mossa = switch (difficulty){
             case EASY -> rispostaSemplice();
             case MEDIUM -> rispostaMedia();
             case HARD -> rispostaDifficile();
             case EXTREME -> rispostaExtrema();
+            case MONTE_CARLO -> rispostaMonteCarlo();
         };
+        if (metriche)
+            Metriche.getIstanza().mossa(difficulty, stato.getSize(), System.nanoTime() - inizio);
+        return mossa;
     }
 
     /**
-     * Selects a random element from a list of integers and returns it.
-     * If the list is empty, it returns 0
-     *                from which a random selection will be made
-     * @return an integer representing a randomly selected element from the list,
-     *         or 0 if the list is empty
+     * Selects a random empty cell in O(1) from the free cells kept by the game state,
+     * see {@link GameState#casellaCasuale}. The generator is {@link #getRandom()} when set,
+     * otherwise the one of the current thread.
+     * @return the index of a random empty cell, or -1 if the board is full
      */
-    public static int rispostaSemplice(){
-        int randomIndex = (int) (Math.random() * caselleVuote.size());
-        return caselleVuote.get(randomIndex);
+    public int rispostaSemplice(){
+        return stato.casellaCasuale(random != null ? random : ThreadLocalRandom.current());
     }
 
     /**
@@ -102,8 +171,10 @@ public class Ai {
     /**
      * Determines the best possible move for the AI based on a combination of offensive
      * and defensive strategies. The method first checks if the AI can make a winning move,
-     * followed by checking if it can block the opponent's winning move. If neither condition
+     * followed by checking if it can block the opponent's winning move, then if it can create
+     * two threats at once (a fork) or has to prevent the opponent's fork. If no condition
      * is met, it resorts to a simple random move strategy.
+     * Every check reads the line counters of the {@link GameState}, so no move is simulated.
      * @return the index of the selected move. If the AI identifies a winning move, that index is returned.
      *         If a defensive move is identified, its index is returned. Otherwise, an index is randomly
      *         selected from the available positions.
@@ -117,234 +188,118 @@ public class Ai {
         var winPlayerCheck = checkForPlayerWin();
         if (winPlayerCheck != -1)
             return winPlayerCheck;
+        //una doppia minaccia vince alla mossa dopo, quella del player va occupata prima
+        var forkCheck = stato.mossaDoppiaMinaccia(simbolo);
+        if (forkCheck != -1)
+            return forkCheck;
+        var forkPlayerCheck = stato.mossaDoppiaMinaccia(GameState.opposto(simbolo));
+        if (forkPlayerCheck != -1)
+            return forkPlayerCheck;
         return rispostaSemplice();
     }
     /**
-     * Determines the index of the optimal element to select or remove from the provided list of integers.
-     * This method uses advanced logic to evaluate the list and return the most strategic index
-     * based on the current game state.
-     * @return an integer representing the selected index from the list based on the extreme strategy
+     * Determines the best move: on 3x3 and 4x4 it is read from the perfect-play tables ({@link TabellaPerfetta},
+     * {@link Tabella4x4} when its file is there), on the other boards it comes from a negamax search with
+     * alpha-beta pruning, see {@link Negamax}, deepened iteratively until the time budget of the move ({@link #tempoMossa()}) expires
+     * and run on all the cores by {@link RicercaParallela}.
+     * The depth reached and the nodes per second of every thread are available in {@link #getUltimaRicerca()}
+     * and in {@link Metriche#getNodiAlSecondoPerThread()}.
+     * @return the index of the best cell
      */
     public int rispostaExtrema(){
-
-        if(passive){
-           return difesaAngolo();
-        }
-        return attaccoAngolo();
+        int mossaTabella = TabellaPerfetta.getIstanza().mossa(stato, simbolo);
+        if (mossaTabella == -1)
+            mossaTabella = Tabella4x4.getIstanza().mossa(stato, simbolo);
+        if (mossaTabella != -1)
+            return mossaTabella;
+        if (ricerca == null)
+            ricerca = new RicercaParallela(TranspositionTable.getCondivisa());
+        ultimaRicerca = ricerca.cerca(stato, simbolo, tempoMossa(), interruzione());
+        if (metriche)
+            Metriche.getIstanza().ricerca(ultimaRicerca);
+        return ultimaRicerca.mossa();
     }
-    public int difesaAngolo(){
-        int vuote = caselleVuote.size();
-        int vere = caselleVere.size();
-        var centro = caselleVere.get(4);
-        boolean hasOppositeCornerMove = (vere - cronologiaPlayer.getFirst() - 1) == cronologiaPlayer.getLast();
-
-        //prima mossa -> se angolo -> centro                                                                     prima mossa
-        if(vuote == vere - 1 && !centro.isUsed())
-            return 4;
-        //seconda mossa -> se rimangono
-        if ((vuote == vere - 3) && hasOppositeCornerMove) {
-            //se il nemico ha posizionato in basso al centro (posizione che vorresti usare tu)
-            if (cronologiaPlayer.getLast() == 7)
-                return rispostaDifficile();
-            return 7;
-        }
 
-        // se nessuna condizione risposta difficile
-        return rispostaDifficile();
+    /**
+     * Determines the move with a Monte Carlo tree search ({@link Mcts}) that runs until the time budget
+     * of the move ({@link #tempoMossa()}) expires. The playouts done and their rate are available in {@link #getUltimaSimulazione()}.
+     * @return the index of the most visited cell
+     */
+    public int rispostaMonteCarlo(){
+        if (mcts == null)
+            mcts = new Mcts();
+        ultimaSimulazione = mcts.cerca(stato, simbolo, tempoMossa(), interruzione());
+        if (metriche)
+            Metriche.getIstanza().playout(ultimaSimulazione.iterazioni());
+        return ultimaSimulazione.mossa();
     }
 
-    public int attaccoAngolo(){
-        int vere = caselleVere.size();
-        var centro = caselleVere.get(4);
-        var vuote = caselleVuote.size();
-        ParamTabella angolo = switch (angoloCasuale){
-            case 0 -> ANGOLO_UP_LEFT;
-            case 1 -> ANGOLO_UP_RIGHT;
-            case 2 -> ANGOLO_DOWN_LEFT;
-            case 3 -> ANGOLO_DOWN_RIGHT;
-            default -> throw new IllegalStateException("Angolo inesistente: " + angoloCasuale);
-        };
-        int row = switch (angoloCasuale){
-            case 0, 1 -> FIRST_ROW.getValue();
-            case 2, 3 -> LAST_ROW.getValue();
-            default -> throw new IllegalStateException("Angolo inesistente " + angoloCasuale);
-        };
-        int col = switch (angoloCasuale){
-            case 0, 2 -> FIRST_COLUMN.getValue();
-            case 1, 3 -> LAST_COLUMN.getValue();
-            default -> throw new IllegalStateException("Angolo inesistente " + angoloCasuale);
-        };
-        cronologiaAi.add(angolo.getValue());
-        int angoloOpposto = vere - cronologiaAi.getFirst() - 1;
-
-
-        //----------PRRIMA MOSSA--------------
-        if(vuote == vere)
-            return angolo.getValue();
-        // ---------SECONDA MOSSA-------------
-        //route 1 -> risposta a mossa centrale
-        if(caselleVere.get(angoloOpposto).isUsed())
-            return rispostaDifficile();
-        if(vuote == vere - 2 && centro.isUsed())
-            return angoloOpposto;
-        //route 2 -> vittoria al 100%
-        if(vuote == vere - 2  && isRowOccupied(row)){
-            System.out.println("SDIJANDOOJASFOWNEFOWOEFMWEOFMWOEIFMWEOIFMWOIEFMWOEIFM");
-            return switch (angolo){
-                case ANGOLO_UP_LEFT -> ANGOLO_DOWN_LEFT.getValue();
-                case ANGOLO_DOWN_LEFT -> ANGOLO_UP_LEFT.getValue();
-                case ANGOLO_UP_RIGHT -> ANGOLO_DOWN_RIGHT.getValue();
-                case ANGOLO_DOWN_RIGHT -> ANGOLO_UP_RIGHT.getValue();
-                default -> throw new IllegalStateException("Angolo inesistente: " + angolo);
-            };
-        }
-        if(vuote == vere - 2  && isColumnOccupied(col)){
-            return switch (angolo){
-                case ANGOLO_UP_LEFT -> ANGOLO_UP_RIGHT.getValue();
-                case ANGOLO_DOWN_LEFT -> ANGOLO_DOWN_RIGHT.getValue();
-                case ANGOLO_UP_RIGHT -> ANGOLO_UP_LEFT.getValue();
-                case ANGOLO_DOWN_RIGHT -> ANGOLO_DOWN_LEFT.getValue();
-                default -> throw new IllegalStateException("Angolo inesistente: " + angolo);
-            };
-        }
-
-        // ---------TERZA MOSSA------------- VITTORIA
-        if (vuote == vere - 4) {
-            System.out.println("DENTRO TERZA MOSSA");
-
-            // Se il centro è occupato e l'angolo opposto non è usato
-            if (centro.isUsed() && !caselleVere.get(angoloOpposto).isUsed()) {
-                System.out.println("Occupo l'angolo opposto per garantire la vittoria.");
-                return angoloOpposto;
+    /**
+     * Pondering: searches the position the player has to move in, as if it were the player, for at most
+     * {@link Difficulty#getTempoPonder()} or until the flag is set. Nothing is played, the work stays where the
+     * next move finds it: EXTREME fills the shared {@link TranspositionTable}, so the replies to the moves of the
+     * player already searched are hits, and MONTE_CARLO keeps its tree, whose subtree of the move played becomes
+     * the root of the next search (see {@link Mcts}). The other difficulties do not ponder.
+     *
+     * @param statoPartita state after the move of the AI, the player to move
+     * @param interruzione flag that stops the pondering, set it as soon as the player moves
+     */
+    public void pondera(GameState statoPartita, AtomicBoolean interruzione){
+        long tempo = difficulty.getTempoPonder();
+        if (tempo <= 0 || statoPartita.getVincitore() != Symbol.EMPTY || statoPartita.isFull())
+            return;
+        var avversario = GameState.opposto(simbolo);
+        switch (difficulty){
+            case EXTREME -> {
+                // sul 3x3 e sul 4x4 la risposta è già nelle tabelle
+                if (TabellaPerfetta.getIstanza().mossa(statoPartita, avversario) != -1
+                        || Tabella4x4.getIstanza().esito(statoPartita, avversario) != 0)
+                    return;
+                if (ricerca == null)
+                    ricerca = new RicercaParallela(TranspositionTable.getCondivisa());
+                Metriche.getIstanza().nodi(ricerca.cerca(statoPartita, avversario, tempo, interruzione).nodiTotali());
+            }
+            case MONTE_CARLO -> {
+                if (mcts == null)
+                    mcts = new Mcts();
+                Metriche.getIstanza().playout(mcts.cerca(statoPartita, avversario, tempo, interruzione).iterazioni());
+            }
+            default -> {
             }
-
-            // Strategia basata sull'angolo iniziale per completare la vittoria
-            return switch (angolo) {
-                case ANGOLO_UP_LEFT -> {
-                    if (!caselleVere.get(ANGOLO_DOWN_RIGHT.getValue()).isUsed()) {
-                        yield ANGOLO_DOWN_RIGHT.getValue();
-                    } else {
-                        yield ANGOLO_DOWN_LEFT.getValue();
-                    }
-                }
-                case ANGOLO_UP_RIGHT -> {
-                    if (!caselleVere.get(ANGOLO_DOWN_LEFT.getValue()).isUsed()) {
-                        yield ANGOLO_DOWN_LEFT.getValue();
-                    } else {
-                        yield ANGOLO_DOWN_RIGHT.getValue();
-                    }
-                }
-                case ANGOLO_DOWN_LEFT -> {
-                    if (!caselleVere.get(ANGOLO_UP_RIGHT.getValue()).isUsed()) {
-                        yield ANGOLO_UP_RIGHT.getValue();
-                    } else {
-                        yield ANGOLO_UP_LEFT.getValue();
-                    }
-                }
-                case ANGOLO_DOWN_RIGHT -> {
-                    if (!caselleVere.get(ANGOLO_UP_LEFT.getValue()).isUsed()) {
-                        yield ANGOLO_UP_LEFT.getValue();
-                    } else {
-                        yield ANGOLO_UP_RIGHT.getValue();
-                    }
-                }
-                default -> throw new IllegalStateException("Angolo inesistente: " + angolo);
-            };
         }
-
-
-
-
-
-        return rispostaDifficile();
     }
-    public boolean isRowOccupied(int row){
 
-        System.out.println("DENTRO RIGHE OCCUPATE");
-        char simboloPlayer = this.simbolo.toString().charAt(0) == 'X' ? 'O' : 'X';
-        var caselleChar = convertCaselleToChar(caselleVere);
-        for(int i = 0; i < 3; i++){
-            System.out.println(caselleChar[row][i] + "PROVARIGHE");
-            if(caselleChar[row][i] == simboloPlayer){
-                return true;
-            }
-        }
-        return false;
+    /**
+     * @return the time budget of a move in milliseconds: {@link #getTempoMossa()} when set,
+     *         otherwise the one of the difficulty ({@link Difficulty#getTempoMossa()})
+     */
+    public long tempoMossa(){
+        return tempoMossa > 0 ? tempoMossa : difficulty.getTempoMossa();
     }
-    public boolean isColumnOccupied(int column){
-        System.out.println("DENTRO COLONNE OCCUPATE");
-        char simboloPlayer = this.simbolo.toString().charAt(0) == 'X' ? 'O' : 'X';
-        var caselleChar = convertCaselleToChar(caselleVere);
-        for(int i = 0; i < 3; i++){
-            System.out.println(caselleChar[i][column] + "PROVACOLONNA");
-            if(caselleChar[i][column] == simboloPlayer){
-                return true;
-            }
-        }
-        return false;
+
+    //chi chiama direttamente le risposte non può annullarle
+    private AtomicBoolean interruzione(){
+        return interruzione != null ? interruzione : new AtomicBoolean();
     }
 
     /**
-     * Simulates and checks possible moves to determine if there is a winning move
-     * for the current player. Iterates through the available cells, simulates a move,
-     * and checks if it results in a win based on the provided check type.
+     * Determines if there is a winning move for the AI, reading the line counters of the
+     * game state (see {@link GameState#mossaVincente}).
      * Returns the index of the winning move if found or -1 if no winning move exists.
      *
      * @return the index of the winning move if a winning condition is met, or -1 if no winning move is possible.
      */
     public int checkForWin(){
-        List<Casella> caselleFalse = new ArrayList<>();
-        for (Casella casella : caselleVere) {
-            caselleFalse.add(new Casella(casella)); // Usa il costruttore di copia
-        }
-
-        char simbolo = this.simbolo.toString().charAt(0); // Ottieni il simbolo attuale dell'AI
-        //per ogni indice nelle caselle vuote
-        for (Integer casella : caselleVuote) {
-            // Esegui la simulazione sulla copia (caselleFalse)
-            caselleFalse.get(casella).seleziona(this.getSimbolo(), this.getSymbolIndex());
-
-            // Converti la lista simulata in un array di char[][] per il controllo
-            char[][] caselleChar = convertCaselleToChar(caselleFalse);
-
-            // Controlla se è possibile vincere con questa simulazione
-            if (CheckTable.check(checkType, new char[]{ simbolo == 'X' ? 'O' : 'X', simbolo}, caselleChar) == P2) {
-                return casella; // Restituisci l'indice della mossa vincente
-            }
-            caselleFalse.get(casella).reset();
-        }
-        // - 1 per indicare nessuna possibilità di vittoria
-        return -1;
+        return stato.mossaVincente(this.simbolo);
     }
 
     /**
-     * Checks if there is a potential winning move for the player based on the current game state.
-     * Simulates each possible move and evaluates if it leads to a winning configuration for the opposing player.
+     * Checks if there is a potential winning move for the player based on the current game state,
+     * that is the cell the AI has to block.
      *
      * @return the index of the cell that would allow the player to win, or -1 if no such move exists
      */
     public int checkForPlayerWin(){
-        List<Casella> caselleFalse = new ArrayList<>();
-        for (Casella casella : caselleVere) {
-            caselleFalse.add(new Casella(casella)); // Usa il costruttore di copia
-        }
-
-        char simbolo = this.simbolo.toString().charAt(0); // Ottieni il simbolo attuale dell'AI
-        //per ogni indice nelle caselle vuote
-        for (Integer casella : caselleVuote) {
-            // Esegui la simulazione sulla copia (caselleFalse)
-            caselleFalse.get(casella).seleziona(this.getSimbolo() == X ? O:X, this.getSymbolIndex());
-
-            // Converti la lista simulata in un array di char[][] per il controllo
-            char[][] caselleChar = convertCaselleToChar(caselleFalse);
-
-            // Controlla se è possibile vincere con questa simulazione
-            if (CheckTable.check(checkType, new char[]{simbolo == 'X' ? 'O' : 'X', simbolo}, caselleChar) == P1) {
-                return casella; // Restituisci l'indice della mossa vincente
-            }
-            caselleFalse.get(casella).reset();
-        }
-        // - 1 per indicare nessuna possibilità di vittoria
-        return -1;
+        return stato.mossaVincente(GameState.opposto(this.simbolo));
     }
 }
\ No newline at end of file
@@ -0,0 +1,117 @@
+package logic;
+
+import lombok.Getter;
+
+import java.util.Arrays;
+
+/**
+ * Compact representation of a square game board based on bitboards.
+ * Every side (0 for player 1, 1 for player 2, the same convention used by the
+ * <code>giro</code> of {@link CheckTable}) owns a small array of 64-bit words:
+ * the bit <code>i</code> is set when the side occupies the cell <code>i</code>,
+ * counted row by row like the cells of {@link GameState}.
+ * <br>
+ * <br>
+ * Boards from {@value #MIN_SIZE}x{@value #MIN_SIZE} to {@value #MAX_SIZE}x{@value #MAX_SIZE}
+ * are supported, which means at most four words per side.
+ */
+public class BitBoard {
+    public static final int MIN_SIZE = 2;
+    public static final int MAX_SIZE = 16;
+
+    @Getter
+    private final int size;
+    private final long[][] bits;
+
+    public BitBoard(int size) {
+        if (size < MIN_SIZE || size > MAX_SIZE)
+            throw new IllegalArgumentException("Dimensione della tabella non supportata: " + size);
+        this.size = size;
+        this.bits = new long[2][words(size)];
+    }
+
+    /**
+     * Builds a bitboard from the <code>char[][]</code> representation used by {@link CheckTable}
+     *
+     * @param symbol  Symbols of the two sides (index 0 for player 1, index 1 for player 2)
+     * @param caselle Square game board array
+     * @return the equivalent bitboard
+     */
+    public static BitBoard fromChar(char[] symbol, char[][] caselle) {
+        var board = new BitBoard(caselle.length);
+        for (int i = 0; i < caselle.length; i++) {
+            for (int j = 0; j < caselle.length; j++) {
+                char c = caselle[i][j];
+                if (c == symbol[0])
+                    board.set(0, i * caselle.length + j);
+                else if (c == symbol[1])
+                    board.set(1, i * caselle.length + j);
+            }
+        }
+        return board;
+    }
+
+    /**
+     * @param size side of the board
+     * @return number of 64-bit words needed to hold one side of the board
+     */
+    public static int words(int size) {
+        return (size * size + 63) >>> 6;
+    }
+
+    public int getCelle() {
+        return size * size;
+    }
+
+    public void set(int lato, int cella) {
+        // lo shift di un long usa solo i 6 bit bassi, quindi cella % 64 è implicito
+        bits[lato][cella >>> 6] |= 1L << cella;
+    }
+
+    public void clear(int lato, int cella) {
+        bits[lato][cella >>> 6] &= ~(1L << cella);
+    }
+
+    public boolean isSet(int lato, int cella) {
+        return (bits[lato][cella >>> 6] & (1L << cella)) != 0;
+    }
+
+    public boolean isEmpty(int cella) {
+        return !isSet(0, cella) && !isSet(1, cella);
+    }
+
+    /**
+     * Gives direct access to the words of a side, used by {@link WinMasks} to test the lines
+     * without copying. The returned array must not be modified.
+     */
+    long[] getBits(int lato) {
+        return bits[lato];
+    }
+
+    public int count(int lato) {
+        int count = 0;
+        for (long word : bits[lato])
+            count += Long.bitCount(word);
+        return count;
+    }
+
+    public void reset() {
+        Arrays.fill(bits[0], 0L);
+        Arrays.fill(bits[1], 0L);
+    }
+
+    /**
+     * Overwrites this board with the symbols of another board of the same size, without allocating
+     */
+    void copiaDa(BitBoard altra) {
+        System.arraycopy(altra.bits[0], 0, bits[0], 0, bits[0].length);
+        System.arraycopy(altra.bits[1], 0, bits[1], 0, bits[1].length);
+    }
+
+    public BitBoard copy() {
+        var copy = new BitBoard(size);
+        System.arraycopy(bits[0], 0, copy.bits[0], 0, bits[0].length);
+        System.arraycopy(bits[1], 0, copy.bits[1], 0, bits[1].length);
+        return copy;
+    }
+}
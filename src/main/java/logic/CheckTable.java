@@ -2,6 +2,7 @@ package logic;
 
 import logic.enums.CheckType;
 import logic.enums.ReturnTurno;
+import logic.enums.Symbol;
 import static logic.enums.ReturnTurno.*;
 
 /**
@@ -161,21 +162,57 @@ public class CheckTable {
      * @return P1 if player 1 won, P2 if player 2 won, NOT_FINISHED otherwise
      */
     public static ReturnTurno check(CheckType checkType, char[] symbol, char[][] caselle) {
-        for (int giro = 0; giro < 2; giro++) {
-            var returnValue = switch (checkType) {
-                case HORIZONTAL -> horizontal(giro, symbol, caselle);
-                case VERTICALE -> vertical(giro, symbol, caselle);
-                case LINEAR -> linear(giro, symbol, caselle);
-                case DIAGONALE -> diagonal(giro, symbol, caselle);
-                case ANTIDIAGONALE -> diagonalOpposite(giro, symbol, caselle);
-                case OBLIQUO -> diagonali(giro, symbol, caselle);
-                case ALL -> all(giro, symbol, caselle);
-            };
+        return check(checkType, BitBoard.fromChar(symbol, caselle));
+    }
 
-            if (returnValue != NOT_FINISHED) {
-                return returnValue;
-            }
+    /**
+     * Performs the win checks on a {@link BitBoard} using the masks precomputed in {@link WinMasks},
+     * so every line costs an AND and a compare instead of a scan of the cells
+     *
+     * @param checkType Type of check to perform (HORIZONTAL, VERTICAL, etc.)
+     * @param board     Game board, side 0 is player 1 and side 1 is player 2
+     * @return P1 if player 1 won, P2 if player 2 won, NOT_FINISHED otherwise
+     */
+    public static ReturnTurno check(CheckType checkType, BitBoard board) {
+        var masks = WinMasks.of(board.getSize(), checkType);
+        for (int giro = 0; giro < 2; giro++) {
+            if (masks.hasLine(board.getBits(giro)))
+                return giro == 0 ? P1 : P2;
         }
         return NOT_FINISHED;
     }
-}
\ No newline at end of file
+
+    /**
+     * Incremental check after a move: only the lines through the last cell played can have been
+     * completed, and only by who played it, so the other lines and the other player are not scanned.
+     * The lines are the row, the column and the diagonals through the cell that the active {@link CheckType} uses.
+     *
+     * @param lastMove Last cell played, see {@link GameState#getLastMove()}
+     * @param p1       Symbol of player 1
+     * @param stato    Game state to check
+     * @return P1 if player 1 won, P2 if player 2 won, NOT_FINISHED otherwise
+     */
+    public static ReturnTurno check(int lastMove, Symbol p1, GameState stato) {
+        if (lastMove < 0)
+            return NOT_FINISHED;
+        var simbolo = stato.getSimbolo(lastMove);
+        if (simbolo == Symbol.EMPTY || !stato.haVinto(simbolo, lastMove))
+            return NOT_FINISHED;
+        return simbolo == p1 ? P1 : P2;
+    }
+
+    /**
+     * Performs the win checks on a {@link GameState} with its active {@link CheckType}
+     *
+     * @param p1    Symbol of player 1
+     * @param stato Game state to check
+     * @return P1 if player 1 won, P2 if player 2 won, NOT_FINISHED otherwise
+     */
+    public static ReturnTurno check(Symbol p1, GameState stato) {
+        var result = check(stato.getCheckType(), stato.getBoard());
+        // il bitboard ha sempre X sul lato 0
+        if (result == NOT_FINISHED || p1 == Symbol.X)
+            return result;
+        return result == P1 ? P2 : P1;
+    }
+}
@@ -0,0 +1,111 @@
+package logic;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the moves of the {@link Ai} away from the thread that asks for them, so the Swing event
+ * thread never waits for a search.
+ * <br>
+ * <br>
+ * {@link #mossa} works on a copy of the state and of the AI ({@link Ai#copia()}) and returns at once a future
+ * of the cell to play, so the caller can change the AI while a cancelled search is still ending.
+ * Cancelling the future stops the search still running: EXTREME and MONTE_CARLO return at their
+ * next check of the time and the result is thrown away, and a move not yet started is never run.
+ * <br>
+ * <br>
+ * The moves run one at a time on the thread <code>ai</code>, the searches use their own threads
+ * for the parallel part.
+ * <br>
+ * <br>
+ * Between the moves the same thread can ponder ({@link #pondera}) on the time of the player: a move
+ * asked afterwards stops the pondering at once, and {@link #fermaPonder()} stops it when the game changes
+ * in any other way.
+ */
+@Slf4j
+public class EsecutoreAi {
+    private final ExecutorService esecutore = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "ai");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    //ferma il ponder in corso o in coda, null se non ce n'è
+    private final AtomicReference<AtomicBoolean> ponder = new AtomicReference<>();
+
+    public static EsecutoreAi getIstanza() {
+        return Istanza.ESECUTORE;
+    }
+
+    private static final class Istanza {
+        private static final EsecutoreAi ESECUTORE = new EsecutoreAi();
+    }
+
+    /**
+     * Asks the AI for its move on the state and with the settings as they are now, later changes to
+     * the state or the AI are not seen
+     *
+     * @return the cell chosen by the AI; cancel it with {@link CompletableFuture#cancel} when the move is not needed anymore
+     */
+    public CompletableFuture<Integer> mossa(Ai ai, GameState stato) {
+        // il player ha mosso, il ponder ha già lasciato quello che serve nella tabella o nell'albero
+        fermaPonder();
+        var copia = stato.copy();
+        var impostazioni = ai.copia();
+        var interruzione = new AtomicBoolean();
+        var futuro = new CompletableFuture<Integer>();
+        // annullato o completato, la ricerca non serve più
+        futuro.whenComplete((mossa, errore) -> interruzione.set(true));
+        esecutore.execute(() -> {
+            if (futuro.isDone())
+                return;
+            try {
+                futuro.complete(impostazioni.azione(copia, interruzione));
+            } catch (RuntimeException e) {
+                log.error("Errore nella mossa dell'AI {}", impostazioni.getDifficulty(), e);
+                futuro.completeExceptionally(e);
+            }
+        });
+        return futuro;
+    }
+
+    /**
+     * Lets the AI search on the time of the player, on a copy of the state after its move
+     * (see {@link Ai#pondera}). It does nothing if the difficulty does not ponder.
+     */
+    public void pondera(Ai ai, GameState stato) {
+        if (ai.getDifficulty().getTempoPonder() <= 0)
+            return;
+        var copia = stato.copy();
+        var impostazioni = ai.copia();
+        var interruzione = new AtomicBoolean();
+        var precedente = ponder.getAndSet(interruzione);
+        if (precedente != null)
+            precedente.set(true);
+        esecutore.execute(() -> {
+            if (interruzione.get())
+                return;
+            try {
+                impostazioni.pondera(copia, interruzione);
+            } catch (RuntimeException e) {
+                log.error("Errore nel ponder dell'AI {}", impostazioni.getDifficulty(), e);
+            } finally {
+                ponder.compareAndSet(interruzione, null);
+            }
+        });
+    }
+
+    /**
+     * Stops the pondering in progress, if any
+     */
+    public void fermaPonder() {
+        var interruzione = ponder.getAndSet(null);
+        if (interruzione != null)
+            interruzione.set(true);
+    }
+}
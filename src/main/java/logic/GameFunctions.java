@@ -6,6 +6,7 @@ import static logic.enums.Symbol.*;
 import logic.enums.CheckType;
 import logic.enums.ReturnTurno;
 import logic.enums.Symbol;
+import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -15,44 +16,29 @@ import java.util.List;
  * validating the game state, handling player and AI actions, and maintaining the
  * condition of game cells.
  */
+@Slf4j
 public class GameFunctions {
-    public static List<Integer> cronologiaAi = new ArrayList<>();
 
-
-    public static ReturnTurno isOver(Symbol player, List<Casella> caselle, CheckType checkType) {
-        char[][] giocate = convertCaselleToChar(caselle);
-        char simbolo = player.toString().charAt(0);
-        return CheckTable.check(checkType, new char[]{simbolo, simbolo == 'X' ? 'O' : 'X'}, giocate);
-    }
-
-    public static char[][] convertCaselleToChar(List<Casella> caselle) {
-        // Calcola la dimensione della griglia (radice quadrata della dimensione totale delle caselle)
-        int size = (int) Math.sqrt(caselle.size());
-
-        // Verifica che la dimensione sia valida (cioè la lista è una griglia quadrata)
-        if (size * size != caselle.size()) {
-            throw new IllegalArgumentException("La lista di caselle non rappresenta una griglia quadrata.");
-        }
-
-        // Inizializza la matrice
-        char[][] giocate = new char[size][size];
-
-        // Converte la lista nella matrice
-        for (int i = 0; i < size; i++) {
-            for (int j = 0; j < size; j++) {
-                giocate[i][j] = caselle.get(i * size + j).getSimbolo().toString().charAt(0);
-            }
-        }
-        return giocate;
+    /**
+     * Checks if the game is over, directly on the {@link GameState}.
+     * It must be called after every move, since only the lines through the last move are checked
+     * (see {@link CheckTable#check(int, Symbol, GameState)})
+     *
+     * @return P1 or P2 if the last move won, TIE if it filled the board, NOT_FINISHED otherwise
+     */
+    public static ReturnTurno isOver(Symbol player, GameState stato) {
+        var result = CheckTable.check(stato.getLastMove(), player, stato);
+        if (result == NOT_FINISHED && stato.isFull())
+            return TIE;
+        return result;
     }
 
     /**
-     * <b>For every {@link Casella} use the function reset</b>
-     * @param caselle {@link List} of {@link Casella} to clean
+     * <b>Resets the {@link GameState}, the board component repaints it empty</b>
+     * @param stato {@link GameState} to clean
      */
-    public static void clean(List<Casella> caselle) {
-        for (Casella casella : caselle)
-            casella.reset();
+    public static void clean(GameState stato) {
+        stato.reset();
     }
 
 //    public static ReturnTurno isFull(List<Casella> caselle){
@@ -63,35 +49,42 @@ public class GameFunctions {
 //        return TIE;
 //    }
 
-    public static ReturnTurno turnoAi(Player player, Ai ai, List<Casella> caselle, CheckType checkType) {
+    /**
+     * Plays the turn of the AI on the game state, after the move of the player
+     *
+     * @return the state of the game after the move, the cell played is {@link GameState#getLastMove()}
+     */
+    public static ReturnTurno turnoAi(Player player, Ai ai, GameState stato, CheckType checkType) {
         // Configurazione IA corretta in base al Player
         var sP1 = player.getSimbolo();
         ai.setSimbolo(sP1 == X ? O : X);
 
-        // La lista delle celle deve essere valida
-        if (caselle == null || caselle.isEmpty())
-            throw new IllegalArgumentException("La lista delle caselle non è valida.");
-
-        if(getAvailablePositions(caselle).isEmpty())
-            return TIE;
-        System.out.println(caselle.size());
+        // Lo stato deve essere valido
+        if (stato == null)
+            throw new IllegalArgumentException("Lo stato della partita non è valido.");
+        stato.setCheckType(checkType);
+        // la mossa del player può aver già chiuso la partita
+        var result = isOver(player.getSimbolo(), stato);
+        if (result != NOT_FINISHED)
+            return result;
 
         // L'IA effettua la mossa restituendo l'indice della matrice da selezionare
-        var azione = ai.azione(caselle, checkType); // Metodo "azione" decide dove giocare
-        cronologiaAi.add(azione);
-        // La casella selezionata dall'IA viene aggiornata
-        System.out.println(azione);
-        caselle.get(azione).seleziona(ai.getSimbolo(), ai.getSymbolIndex());
+        var azione = ai.azione(stato); // Metodo "azione" decide dove giocare
+        // La mossa dell'IA viene registrata sullo stato
+        log.debug("Mossa {} di {} su {}x{}", azione, ai.getDifficulty(), stato.getSize(), stato.getSize());
+        stato.move(azione, ai.getSimbolo());
 
         // Controlla lo stato del gioco dopo la mossa dell'IA
-        return GameFunctions.isOver(player.getSimbolo(), caselle, checkType);
+        return GameFunctions.isOver(player.getSimbolo(), stato);
     }
-    public static List<Integer> getAvailablePositions(List<Casella> caselle){
-        List<Integer> caselleVuote = new ArrayList<>();
-        for(var casella : caselle){
-            if(casella.getSimbolo() == Symbol.EMPTY && !casella.isUsed())
-                caselleVuote.add(caselle.indexOf(casella));
-        }
+    /**
+     * Copies the free cells of the state in a new list, in the order kept by the state.
+     * The AI reads them straight from the state ({@link GameState#getLibera}) without allocating.
+     */
+    public static List<Integer> getAvailablePositions(GameState stato){
+        List<Integer> caselleVuote = new ArrayList<>(stato.getNumeroLibere());
+        for(int i = 0; i < stato.getNumeroLibere(); i++)
+            caselleVuote.add(stato.getLibera(i));
         return caselleVuote;
     }
 }
\ No newline at end of file
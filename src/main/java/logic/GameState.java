@@ -0,0 +1,375 @@
+package logic;
+
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+import logic.enums.Trasformazione;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Headless model of a game: the board, the active {@link CheckType}, whose turn it is and the
+ * moves played so far. It does not depend on Swing, so the {@link Ai} can simulate moves on it
+ * with {@link #move(int)} and {@link #undo()} without creating any component or loading images,
+ * while the board component of the UI only paints it.
+ * <br>
+ * <br>
+ * The board is kept as a {@link BitBoard} where side 0 is {@link Symbol#X} and side 1 is {@link Symbol#O}.
+ * Next to it the state keeps, for every line of {@link Linee}, how many symbols of each side it holds:
+ * the counters are updated by every move and undo, so threats ({@link #mossaVincente},
+ * {@link #mossaDoppiaMinaccia}) are found by reading them instead of simulating moves.
+ * <br>
+ * <br>
+ * The free cells are also kept in a dense array with the position of every cell in it: a move
+ * swaps the cell with the last free one, so occupying, freeing and picking a random free cell
+ * ({@link #casellaCasuale}) are O(1) and {@link #getLibera} iterates them without allocating.
+ */
+public class GameState {
+    @Getter
+    private final int size;
+    @Getter
+    @Setter
+    private CheckType checkType;
+    /**
+     * Symbol that will be placed by {@link #move(int)}
+     */
+    @Getter
+    @Setter
+    private Symbol turno = Symbol.X;
+    private final BitBoard board;
+    private final int[] mosse;
+    //turno prima di ogni mossa, per ripristinarlo con undo
+    private final Symbol[] turniPrecedenti;
+    private int numeroMosse = 0;
+    //XOR delle chiavi Zobrist dei simboli per ogni trasformazione della tabella, aggiornati da move e undo
+    private final long[] hashPedine = new long[Trasformazione.values().length];
+    private final Linee linee;
+    //[lato][linea] -> simboli del lato sulla linea
+    private final int[][] occupazione;
+    //[linea] -> somma degli indici delle celle usate della linea
+    private final int[] sommaUsate;
+    //le prime numeroLibere celle sono quelle libere, in ordine qualsiasi
+    private final int[] libere;
+    //[cella] -> indice della cella in libere
+    private final int[] posizioni;
+    private int numeroLibere;
+
+    public GameState(int size, CheckType checkType) {
+        this.size = size;
+        this.checkType = checkType;
+        this.board = new BitBoard(size);
+        this.mosse = new int[size * size];
+        this.turniPrecedenti = new Symbol[size * size];
+        this.linee = Linee.of(size);
+        this.occupazione = new int[2][linee.getNumero()];
+        this.sommaUsate = new int[linee.getNumero()];
+        this.libere = new int[size * size];
+        this.posizioni = new int[size * size];
+        liberaTutte();
+    }
+
+    private void liberaTutte() {
+        for (int cella = 0; cella < libere.length; cella++) {
+            libere[cella] = cella;
+            posizioni[cella] = cella;
+        }
+        numeroLibere = libere.length;
+    }
+
+    /**
+     * @return the side of the {@link BitBoard} used by the symbol
+     */
+    public static int lato(Symbol simbolo) {
+        if (simbolo == Symbol.EMPTY)
+            throw new IllegalArgumentException("Il simbolo EMPTY non ha un lato");
+        return simbolo.ordinal();
+    }
+
+    public static Symbol opposto(Symbol simbolo) {
+        return simbolo == Symbol.X ? Symbol.O : Symbol.X;
+    }
+
+    public int getCelle() {
+        return size * size;
+    }
+
+    public Symbol getSimbolo(int cella) {
+        if (board.isSet(0, cella)) return Symbol.X;
+        if (board.isSet(1, cella)) return Symbol.O;
+        return Symbol.EMPTY;
+    }
+
+    public boolean isEmpty(int cella) {
+        return board.isEmpty(cella);
+    }
+
+    public boolean isFull() {
+        return numeroMosse == mosse.length;
+    }
+
+    public int getNumeroMosse() {
+        return numeroMosse;
+    }
+
+    public int getNumeroLibere() {
+        return numeroLibere;
+    }
+
+    /**
+     * @param i index from 0 to {@link #getNumeroLibere()} excluded
+     * @return the i-th free cell, the order changes with every move and undo
+     */
+    public int getLibera(int i) {
+        return libere[i];
+    }
+
+    /**
+     * @return a free cell chosen at random, or -1 if the board is full
+     */
+    public int casellaCasuale(RandomGenerator random) {
+        return numeroLibere == 0 ? -1 : libere[random.nextInt(numeroLibere)];
+    }
+
+    /**
+     * @return the index of the last cell played, or -1 if the board is empty
+     */
+    public int getLastMove() {
+        return numeroMosse == 0 ? -1 : mosse[numeroMosse - 1];
+    }
+
+    /**
+     * @return a copy of the cells played so far, in order
+     */
+    public int[] getMosse() {
+        int[] copia = new int[numeroMosse];
+        System.arraycopy(mosse, 0, copia, 0, numeroMosse);
+        return copia;
+    }
+
+    /**
+     * Places the symbol of the current {@link #turno} and passes the turn
+     */
+    public void move(int cella) {
+        move(cella, turno);
+    }
+
+    /**
+     * Places the given symbol on the cell, the turn passes to the opposite symbol
+     *
+     * @throws IllegalStateException if the cell is already used
+     */
+    public void move(int cella, Symbol simbolo) {
+        if (!board.isEmpty(cella))
+            throw new IllegalStateException("Casella già occupata: " + cella);
+        board.set(lato(simbolo), cella);
+        aggiornaHash(lato(simbolo), cella);
+        aggiornaLinee(lato(simbolo), cella, 1);
+        occupa(cella);
+        turniPrecedenti[numeroMosse] = turno;
+        mosse[numeroMosse++] = cella;
+        turno = opposto(simbolo);
+    }
+
+    /**
+     * Removes the last move played, the turn goes back to what it was before that move
+     *
+     * @throws IllegalStateException if there are no moves to undo
+     */
+    public void undo() {
+        if (numeroMosse == 0)
+            throw new IllegalStateException("Nessuna mossa da annullare");
+        int cella = mosse[--numeroMosse];
+        int lato = lato(getSimbolo(cella));
+        board.clear(lato, cella);
+        aggiornaHash(lato, cella);
+        aggiornaLinee(lato, cella, -1);
+        libera(cella);
+        turno = turniPrecedenti[numeroMosse];
+    }
+
+    /**
+     * Empties the board, the turn goes back to {@link Symbol#X}
+     */
+    public void reset() {
+        board.reset();
+        numeroMosse = 0;
+        Arrays.fill(hashPedine, 0L);
+        Arrays.fill(occupazione[0], 0);
+        Arrays.fill(occupazione[1], 0);
+        Arrays.fill(sommaUsate, 0);
+        liberaTutte();
+        turno = Symbol.X;
+    }
+
+    /**
+     * Zobrist hash of the position, see {@link Zobrist}: it covers the symbols on the board,
+     * the board size, the {@link CheckType} and the side to move
+     */
+    public long getHash() {
+        return getHash(Trasformazione.IDENTITA);
+    }
+
+    /**
+     * Zobrist hash of the position after the transformation of the board
+     */
+    public long getHash(Trasformazione trasformazione) {
+        long hash = hashPedine[trasformazione.ordinal()] ^ Zobrist.regola(size, checkType);
+        return turno == Symbol.O ? hash ^ Zobrist.turno(size) : hash;
+    }
+
+    /**
+     * Among the symmetries allowed by the {@link CheckType} (see {@link Trasformazione#ammesse}) finds
+     * the one that gives the smallest hash: every rotation or reflection of this position gets the same
+     * canonical form, see {@link Simmetrie}
+     */
+    public Trasformazione getTrasformazioneCanonica() {
+        var migliore = Trasformazione.IDENTITA;
+        long minimo = hashPedine[0];
+        for (var trasformazione : Trasformazione.ammesse(checkType)) {
+            long hash = hashPedine[trasformazione.ordinal()];
+            if (Long.compareUnsigned(hash, minimo) < 0) {
+                minimo = hash;
+                migliore = trasformazione;
+            }
+        }
+        return migliore;
+    }
+
+    /**
+     * @return the hash of the canonical form of the position
+     */
+    public long getHashCanonico() {
+        return getHash(getTrasformazioneCanonica());
+    }
+
+    private void aggiornaHash(int lato, int cella) {
+        for (var trasformazione : Trasformazione.values())
+            hashPedine[trasformazione.ordinal()] ^=
+                    Zobrist.pedina(size, lato, Simmetrie.permutazione(size, trasformazione)[cella]);
+    }
+
+    //sposta l'ultima cella libera al posto di quella occupata
+    private void occupa(int cella) {
+        int posizione = posizioni[cella];
+        int ultima = libere[--numeroLibere];
+        libere[posizione] = ultima;
+        posizioni[ultima] = posizione;
+        libere[numeroLibere] = cella;
+        posizioni[cella] = numeroLibere;
+    }
+
+    //la cella occupata è subito dopo le libere, basta allargarle
+    private void libera(int cella) {
+        int posizione = posizioni[cella];
+        int prima = libere[numeroLibere];
+        libere[posizione] = prima;
+        posizioni[prima] = posizione;
+        libere[numeroLibere] = cella;
+        posizioni[cella] = numeroLibere++;
+    }
+
+    private void aggiornaLinee(int lato, int cella, int verso) {
+        for (int linea : linee.perCella(cella)) {
+            occupazione[lato][linea] += verso;
+            sommaUsate[linea] += verso * cella;
+        }
+    }
+
+    /**
+     * Finds a cell that completes a line of the active {@link CheckType} for the symbol:
+     * a line where the symbol holds every cell but one and the opponent holds none
+     *
+     * @return the cell, or -1 if the symbol cannot win with one move
+     */
+    public int mossaVincente(Symbol simbolo) {
+        int mio = lato(simbolo);
+        for (int linea = 0; linea < linee.getNumero(); linea++)
+            if (occupazione[mio][linea] == size - 1 && occupazione[1 - mio][linea] == 0
+                    && linee.attiva(checkType, linea))
+                return linee.somma(linea) - sommaUsate[linea];
+        return -1;
+    }
+
+    /**
+     * @return how many lines of the active {@link CheckType} would become a winning threat for the
+     * symbol if it played on the empty cell, that is lines through the cell with all but two cells of the
+     * symbol and none of the opponent
+     */
+    public int minacceCreate(Symbol simbolo, int cella) {
+        int mio = lato(simbolo);
+        int minacce = 0;
+        for (int linea : linee.perCella(cella))
+            if (occupazione[mio][linea] == size - 2 && occupazione[1 - mio][linea] == 0
+                    && linee.attiva(checkType, linea))
+                minacce++;
+        return minacce;
+    }
+
+    /**
+     * Finds a fork for the symbol: an empty cell that creates two winning threats at once,
+     * so the opponent can block only one of them
+     *
+     * @return the cell, or -1 if there is none
+     */
+    public int mossaDoppiaMinaccia(Symbol simbolo) {
+        for (int cella = 0; cella < getCelle(); cella++)
+            if (board.isEmpty(cella) && minacceCreate(simbolo, cella) >= 2)
+                return cella;
+        return -1;
+    }
+
+    /**
+     * @return true if the symbol has completed a line of the active {@link CheckType}
+     */
+    public boolean haVinto(Symbol simbolo) {
+        return WinMasks.of(size, checkType).hasLine(board, lato(simbolo));
+    }
+
+    /**
+     * Incremental version of {@link #haVinto(Symbol)} that only looks at the lines through the cell,
+     * enough right after the symbol has been placed there
+     *
+     * @return true if the symbol has completed a line through the cell
+     */
+    public boolean haVinto(Symbol simbolo, int cella) {
+        return WinMasks.of(size, checkType).hasLine(board, lato(simbolo), cella);
+    }
+
+    /**
+     * @return the symbol that completed a line, or {@link Symbol#EMPTY} if nobody did
+     */
+    public Symbol getVincitore() {
+        return switch (CheckTable.check(checkType, board)) {
+            case P1 -> Symbol.X;
+            case P2 -> Symbol.O;
+            default -> Symbol.EMPTY;
+        };
+    }
+
+    /**
+     * Heuristic value of the position for the symbol, see {@link WinMasks#valuta}
+     */
+    public int valuta(Symbol simbolo) {
+        return WinMasks.of(size, checkType).valuta(board, lato(simbolo));
+    }
+
+    /**
+     * Gives read access to the bitboard for the classes of the engine.
+     * The board must be changed only through {@link #move} and {@link #undo}.
+     */
+    BitBoard getBoard() {
+        return board;
+    }
+
+    public GameState copy() {
+        var copia = new GameState(size, checkType);
+        for (int i = 0; i < numeroMosse; i++) {
+            copia.turno = turniPrecedenti[i];
+            copia.move(mosse[i], getSimbolo(mosse[i]));
+        }
+        copia.turno = turno;
+        return copia;
+    }
+}
@@ -0,0 +1,111 @@
+package logic;
+
+import logic.enums.CheckType;
+import lombok.Getter;
+
+/**
+ * Every possible winning line of a board size, whatever the {@link CheckType}: the rows
+ * (indexes <code>0..size-1</code>), the columns (<code>size..2*size-1</code>), the diagonal
+ * (<code>2*size</code>) and the antidiagonal (<code>2*size+1</code>).
+ * A {@link CheckType} only enables some of them, see {@link #attiva}.
+ * <br>
+ * <br>
+ * Used by {@link GameState} to keep how many symbols of each side are on every line.
+ */
+public final class Linee {
+    private static final Linee[] CACHE = new Linee[BitBoard.MAX_SIZE + 1];
+
+    static {
+        for (int size = BitBoard.MIN_SIZE; size <= BitBoard.MAX_SIZE; size++)
+            CACHE[size] = new Linee(size);
+    }
+
+    @Getter
+    private final int size;
+    //[linea] -> celle della linea
+    private final int[][] celle;
+    //[linea] -> somma degli indici delle celle della linea
+    private final int[] somme;
+    //[cella] -> linee che passano per la cella
+    private final int[][] perCella;
+    //[checkType][linea] -> true se il checkType usa la linea
+    private final boolean[][] attive;
+
+    private Linee(int size) {
+        this.size = size;
+        int numero = 2 * size + 2;
+        this.celle = new int[numero][size];
+        for (int i = 0; i < size; i++) {
+            for (int j = 0; j < size; j++) {
+                celle[i][j] = i * size + j;
+                celle[size + i][j] = j * size + i;
+            }
+            celle[2 * size][i] = i * (size + 1);
+            celle[2 * size + 1][i] = (i + 1) * (size - 1);
+        }
+
+        this.somme = new int[numero];
+        int[] lineePerCella = new int[size * size];
+        for (int linea = 0; linea < numero; linea++)
+            for (int cella : celle[linea]) {
+                somme[linea] += cella;
+                lineePerCella[cella]++;
+            }
+        this.perCella = new int[size * size][];
+        for (int cella = 0; cella < size * size; cella++)
+            perCella[cella] = new int[lineePerCella[cella]];
+        int[] riempite = new int[size * size];
+        for (int linea = 0; linea < numero; linea++)
+            for (int cella : celle[linea])
+                perCella[cella][riempite[cella]++] = linea;
+
+        this.attive = new boolean[CheckType.values().length][numero];
+        for (var checkType : CheckType.values()) {
+            for (int i = 0; i < size; i++) {
+                attive[checkType.ordinal()][i] = checkType.isRighe();
+                attive[checkType.ordinal()][size + i] = checkType.isColonne();
+            }
+            attive[checkType.ordinal()][2 * size] = checkType.isDiagonale();
+            attive[checkType.ordinal()][2 * size + 1] = checkType.isAntidiagonale();
+        }
+    }
+
+    public static Linee of(int size) {
+        if (size < BitBoard.MIN_SIZE || size > BitBoard.MAX_SIZE)
+            throw new IllegalArgumentException("Dimensione della tabella non supportata: " + size);
+        return CACHE[size];
+    }
+
+    public int getNumero() {
+        return celle.length;
+    }
+
+    /**
+     * @return the lines that pass through the cell, the array must not be modified
+     */
+    public int[] perCella(int cella) {
+        return perCella[cella];
+    }
+
+    /**
+     * @return the cells of the line, the array must not be modified
+     */
+    public int[] celle(int linea) {
+        return celle[linea];
+    }
+
+    /**
+     * @return the sum of the indexes of the cells of the line, so the only free cell of a line
+     * is this sum minus the sum of its used cells
+     */
+    public int somma(int linea) {
+        return somme[linea];
+    }
+
+    /**
+     * @return true if the line is a winning line of the check type
+     */
+    public boolean attiva(CheckType checkType, int linea) {
+        return attive[checkType.ordinal()][linea];
+    }
+}
@@ -0,0 +1,72 @@
+package logic;
+
+import logic.enums.CheckType;
+import logic.enums.Trasformazione;
+
+/**
+ * Canonicalisation of boards through the symmetries of the square, see {@link Trasformazione}.
+ * The canonical form of a position is the transformation, among the ones allowed by its
+ * {@link CheckType}, with the smallest Zobrist hash: all the rotations and reflections of a position
+ * have the same canonical form, so searches and caches keyed on it see them as one position.
+ * <br>
+ * <br>
+ * The moves found on the canonical form are brought back to the real board with {@link #daCanonica}.
+ */
+public final class Simmetrie {
+    //[size][trasformazione][cella] -> cella trasformata
+    private static final int[][][] PERMUTAZIONI = new int[BitBoard.MAX_SIZE + 1][][];
+
+    static {
+        var trasformazioni = Trasformazione.values();
+        for (int size = BitBoard.MIN_SIZE; size <= BitBoard.MAX_SIZE; size++) {
+            PERMUTAZIONI[size] = new int[trasformazioni.length][size * size];
+            for (var t : trasformazioni)
+                for (int cella = 0; cella < size * size; cella++)
+                    PERMUTAZIONI[size][t.ordinal()][cella] = t.applica(cella, size);
+        }
+    }
+
+    private Simmetrie() {
+    }
+
+    /**
+     * @return the permutation of the cells done by the transformation, it must not be modified
+     */
+    static int[] permutazione(int size, Trasformazione trasformazione) {
+        return PERMUTAZIONI[size][trasformazione.ordinal()];
+    }
+
+    /**
+     * Brings a move found on the canonical form back to the real board
+     */
+    public static int daCanonica(int mossa, int size, Trasformazione trasformazione) {
+        return PERMUTAZIONI[size][trasformazione.inversa().ordinal()][mossa];
+    }
+
+    /**
+     * Maps a move of the real board onto the canonical form
+     */
+    public static int aCanonica(int mossa, int size, Trasformazione trasformazione) {
+        return PERMUTAZIONI[size][trasformazione.ordinal()][mossa];
+    }
+
+    /**
+     * @return a new bitboard with every symbol moved by the transformation
+     */
+    public static BitBoard trasforma(BitBoard board, Trasformazione trasformazione) {
+        int[] permutazione = permutazione(board.getSize(), trasformazione);
+        var trasformata = new BitBoard(board.getSize());
+        for (int lato = 0; lato < 2; lato++)
+            for (int cella = 0; cella < permutazione.length; cella++)
+                if (board.isSet(lato, cella))
+                    trasformata.set(lato, permutazione[cella]);
+        return trasformata;
+    }
+
+    /**
+     * @return the canonical form of the board of the state, see {@link GameState#getTrasformazioneCanonica()}
+     */
+    public static BitBoard canonica(GameState stato) {
+        return trasforma(stato.getBoard(), stato.getTrasformazioneCanonica());
+    }
+}
@@ -0,0 +1,54 @@
+package logic;
+
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random game played to the end from a position, the playout of the Monte Carlo search.
+ * It works on its own bitboard and free-cell array, allocated once, so a thread can run
+ * millions of playouts without creating any object.
+ * <br>
+ * <br>
+ * An instance is not thread-safe: every search thread uses its own.
+ */
+public final class Simulazione {
+    private final BitBoard board;
+    private final WinMasks masks;
+    private final int[] libere;
+
+    public Simulazione(int size, CheckType checkType) {
+        this.board = new BitBoard(size);
+        this.masks = WinMasks.of(size, checkType);
+        this.libere = new int[size * size];
+    }
+
+    /**
+     * Plays random moves from the position of the state until someone completes a line or the board is full.
+     * The state is not changed.
+     *
+     * @param stato  starting position, of the same size and check type of the simulation
+     * @param random generator of the thread
+     * @return the symbol that won, or {@link Symbol#EMPTY} for a tie
+     */
+    public Symbol gioca(GameState stato, SplittableRandom random) {
+        board.copiaDa(stato.getBoard());
+        int numeroLibere = stato.getNumeroLibere();
+        for (int i = 0; i < numeroLibere; i++)
+            libere[i] = stato.getLibera(i);
+
+        int lato = GameState.lato(stato.getTurno());
+        while (numeroLibere > 0) {
+            // estrae una casella a caso e la sostituisce con l'ultima
+            int i = random.nextInt(numeroLibere);
+            int cella = libere[i];
+            libere[i] = libere[--numeroLibere];
+            board.set(lato, cella);
+            if (masks.hasLine(board.getBits(lato), cella))
+                return lato == 0 ? Symbol.X : Symbol.O;
+            lato = 1 - lato;
+        }
+        return Symbol.EMPTY;
+    }
+}
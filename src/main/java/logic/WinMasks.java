@@ -0,0 +1,184 @@
+package logic;
+
+import logic.enums.CheckType;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Precomputed winning lines for every supported board size and {@link CheckType}.
+ * Every line is stored as a bit mask in the same layout of {@link BitBoard}, so checking
+ * if a side has completed a line is just an AND and a compare per word.
+ * <br>
+ * <br>
+ * The masks are built once when the class is loaded and shared by every game.
+ */
+public final class WinMasks {
+    private static final WinMasks[][] CACHE = new WinMasks[BitBoard.MAX_SIZE + 1][CheckType.values().length];
+
+    static {
+        for (int size = BitBoard.MIN_SIZE; size <= BitBoard.MAX_SIZE; size++)
+            for (CheckType checkType : CheckType.values())
+                CACHE[size][checkType.ordinal()] = new WinMasks(size, checkType);
+    }
+
+    @Getter
+    private final int size;
+    @Getter
+    private final CheckType checkType;
+    private final int words;
+    //maschere di tutte le linee, una dopo l'altra, ognuna lunga words
+    private final long[] masks;
+    //[cella] -> offset in masks delle linee che passano per la cella
+    private final int[][] lineePerCella;
+
+    private WinMasks(int size, CheckType checkType) {
+        this.size = size;
+        this.checkType = checkType;
+        this.words = BitBoard.words(size);
+
+        List<int[]> linee = new ArrayList<>();
+        if (checkType.isRighe())
+            for (int row = 0; row < size; row++)
+                linee.add(line(row * size, 1));
+        if (checkType.isColonne())
+            for (int col = 0; col < size; col++)
+                linee.add(line(col, size));
+        if (checkType.isDiagonale())
+            linee.add(line(0, size + 1));
+        if (checkType.isAntidiagonale())
+            linee.add(line(size - 1, size - 1));
+
+        this.masks = new long[linee.size() * words];
+        for (int l = 0; l < linee.size(); l++)
+            for (int cella : linee.get(l))
+                masks[l * words + (cella >>> 6)] |= 1L << cella;
+
+        this.lineePerCella = new int[size * size][];
+        for (int cella = 0; cella < size * size; cella++) {
+            List<Integer> offsets = new ArrayList<>();
+            for (int l = 0; l < linee.size(); l++)
+                for (int c : linee.get(l))
+                    if (c == cella)
+                        offsets.add(l * words);
+            lineePerCella[cella] = offsets.stream().mapToInt(Integer::intValue).toArray();
+        }
+    }
+
+    /**
+     * @return the precomputed masks for the given board size and check type
+     */
+    public static WinMasks of(int size, CheckType checkType) {
+        if (size < BitBoard.MIN_SIZE || size > BitBoard.MAX_SIZE)
+            throw new IllegalArgumentException("Dimensione della tabella non supportata: " + size);
+        return CACHE[size][checkType.ordinal()];
+    }
+
+    //celle di una linea partendo da start e avanzando di step per size volte
+    private int[] line(int start, int step) {
+        int[] celle = new int[size];
+        for (int i = 0; i < size; i++)
+            celle[i] = start + i * step;
+        return celle;
+    }
+
+    public int getLinee() {
+        return masks.length / words;
+    }
+
+    /**
+     * Checks if the given side has completed at least one of the lines
+     *
+     * @param bits words of one side of a {@link BitBoard}
+     * @return true if every cell of a line is occupied by the side
+     */
+    public boolean hasLine(long[] bits) {
+        if (words == 1) {
+            long b = bits[0];
+            for (long mask : masks)
+                if ((b & mask) == mask)
+                    return true;
+            return false;
+        }
+        for (int offset = 0; offset < masks.length; offset += words) {
+            boolean win = true;
+            for (int w = 0; w < words; w++) {
+                long mask = masks[offset + w];
+                if ((bits[w] & mask) != mask) {
+                    win = false;
+                    break;
+                }
+            }
+            if (win) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks only the lines that pass through a cell: after a move only those can have been
+     * completed, so it costs at most one row, one column and two diagonals instead of every line
+     *
+     * @param bits  words of one side of a {@link BitBoard}
+     * @param cella last cell played by the side
+     * @return true if a line through the cell is fully occupied by the side
+     */
+    public boolean hasLine(long[] bits, int cella) {
+        for (int offset : lineePerCella[cella]) {
+            boolean win = true;
+            for (int w = 0; w < words; w++) {
+                long mask = masks[offset + w];
+                if ((bits[w] & mask) != mask) {
+                    win = false;
+                    break;
+                }
+            }
+            if (win) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Checks if the given side of the board has completed at least one of the lines
+     */
+    public boolean hasLine(BitBoard board, int lato) {
+        return hasLine(board.getBits(lato));
+    }
+
+    /**
+     * Checks if the given side of the board has completed a line through the cell, see {@link #hasLine(long[], int)}
+     */
+    public boolean hasLine(BitBoard board, int lato, int cella) {
+        return hasLine(board.getBits(lato), cella);
+    }
+
+    /**
+     * Static evaluation of the board from the point of view of a side: every line still open
+     * for only one of the two sides is worth more the more cells that side already holds in it.
+     * Lines where both sides are present can no longer be completed and are worth nothing.
+     *
+     * @return a positive value if the position is good for the side, negative if it is good for the opponent
+     */
+    public int valuta(BitBoard board, int lato) {
+        long[] mie = board.getBits(lato);
+        long[] altre = board.getBits(1 - lato);
+        int valore = 0;
+        for (int offset = 0; offset < masks.length; offset += words) {
+            int mio = 0, altro = 0;
+            for (int w = 0; w < words; w++) {
+                mio += Long.bitCount(mie[w] & masks[offset + w]);
+                altro += Long.bitCount(altre[w] & masks[offset + w]);
+            }
+            if (altro == 0)
+                valore += peso(mio);
+            else if (mio == 0)
+                valore -= peso(altro);
+        }
+        return valore;
+    }
+
+    //4^celle, limitato per non superare mai il punteggio di una vittoria
+    private static int peso(int celle) {
+        return celle == 0 ? 0 : 1 << (2 * Math.min(celle, 6));
+    }
+}
@@ -0,0 +1,54 @@
+package logic;
+
+import logic.enums.CheckType;
+
+import java.util.SplittableRandom;
+
+/**
+ * Random keys for the Zobrist hashing of a {@link GameState}.
+ * The hash of a position is the XOR of the key of every symbol on the board, of the key of the
+ * {@link CheckType} and, when {@link logic.enums.Symbol#O} has to move, of the key of the turn.
+ * Every board size has its own keys, so the hash identifies the position together with
+ * (board size, {@link CheckType}, side to move).
+ * <br>
+ * <br>
+ * The keys come from a fixed seed, so the same position has the same hash in every run.
+ */
+public final class Zobrist {
+    private static final long SEED = 0x5472_6973_4A0BL;
+    //[size][lato][cella]
+    private static final long[][][] PEDINE = new long[BitBoard.MAX_SIZE + 1][][];
+    //[size][checkType]
+    private static final long[][] REGOLE = new long[BitBoard.MAX_SIZE + 1][];
+    //[size]
+    private static final long[] TURNO = new long[BitBoard.MAX_SIZE + 1];
+
+    static {
+        var random = new SplittableRandom(SEED);
+        for (int size = BitBoard.MIN_SIZE; size <= BitBoard.MAX_SIZE; size++) {
+            PEDINE[size] = new long[2][size * size];
+            for (int lato = 0; lato < 2; lato++)
+                for (int cella = 0; cella < size * size; cella++)
+                    PEDINE[size][lato][cella] = random.nextLong();
+            REGOLE[size] = new long[CheckType.values().length];
+            for (int i = 0; i < REGOLE[size].length; i++)
+                REGOLE[size][i] = random.nextLong();
+            TURNO[size] = random.nextLong();
+        }
+    }
+
+    private Zobrist() {
+    }
+
+    public static long pedina(int size, int lato, int cella) {
+        return PEDINE[size][lato][cella];
+    }
+
+    public static long regola(int size, CheckType checkType) {
+        return REGOLE[size][checkType.ordinal()];
+    }
+
+    public static long turno(int size) {
+        return TURNO[size];
+    }
+}
@@ -1,11 +1,30 @@
 package logic.enums;
 
+import lombok.Getter;
+
+/**
+ * Which lines win a game. The four flags are the only place where a check type is turned into
+ * lines: the masks of {@link logic.WinMasks} and the counters of {@link logic.Linee} are both built from them.
+ */
+@Getter
 public enum CheckType {
-    HORIZONTAL,
-    VERTICALE,
-    LINEAR,
-    DIAGONALE,
-    ANTIDIAGONALE,
-    OBLIQUO,
-    ALL
+    HORIZONTAL(true, false, false, false),
+    VERTICALE(false, true, false, false),
+    LINEAR(true, true, false, false),
+    DIAGONALE(false, false, true, false),
+    ANTIDIAGONALE(false, false, false, true),
+    OBLIQUO(false, false, true, true),
+    ALL(true, true, true, true);
+
+    private final boolean righe;
+    private final boolean colonne;
+    private final boolean diagonale;
+    private final boolean antidiagonale;
+
+    CheckType(boolean righe, boolean colonne, boolean diagonale, boolean antidiagonale) {
+        this.righe = righe;
+        this.colonne = colonne;
+        this.diagonale = diagonale;
+        this.antidiagonale = antidiagonale;
+    }
 }
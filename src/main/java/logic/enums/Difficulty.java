@@ -1,8 +1,35 @@
 package logic.enums;
 
+import lombok.Getter;
+
 public enum Difficulty {
-    EASY,
-    MEDIUM,
-    HARD,
-    EXTREME
+    EASY(0, 0),
+    MEDIUM(0, 0),
+    HARD(0, 0),
+    EXTREME(1000, 30_000),
+    /**
+     * Monte Carlo tree search, meant for the big boards where EXTREME cannot see the end of the game
+     */
+    MONTE_CARLO(1000, 30_000);
+
+    /**
+     * Time budget of a move in milliseconds for the difficulties that search, 0 for the ones
+     * that follow fixed rules. It can be changed with the system property
+     * <code>tris.tempo.&lt;difficulty&gt;</code>, for example <code>-Dtris.tempo.EXTREME=200</code>
+     */
+    @Getter
+    private final long tempoMossa;
+
+    /**
+     * Longest time in milliseconds the AI keeps searching on the time of the player, after its own move,
+     * 0 if it does not ponder. It can be changed with the system property <code>tris.pondera.&lt;difficulty&gt;</code>,
+     * for example <code>-Dtris.pondera.MONTE_CARLO=0</code> turns it off
+     */
+    @Getter
+    private final long tempoPonder;
+
+    Difficulty(long tempoMossa, long tempoPonder) {
+        this.tempoMossa = Long.getLong("tris.tempo." + name(), tempoMossa);
+        this.tempoPonder = Long.getLong("tris.pondera." + name(), tempoPonder);
+    }
 }
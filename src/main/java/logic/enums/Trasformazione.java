@@ -0,0 +1,72 @@
+package logic.enums;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The 8 symmetries of a square board (the dihedral group): 4 rotations and 4 reflections.
+ * A cell is mapped through {@link #applica}, and {@link #inversa()} gives the transformation
+ * that brings it back.
+ */
+public enum Trasformazione {
+    IDENTITA,
+    ROTAZIONE_90,
+    ROTAZIONE_180,
+    ROTAZIONE_270,
+    SPECCHIO_ORIZZONTALE,
+    SPECCHIO_VERTICALE,
+    TRASPOSTA,
+    ANTITRASPOSTA;
+
+    private static final Map<CheckType, Trasformazione[]> AMMESSE = new EnumMap<>(CheckType.class);
+
+    static {
+        var tutte = values();
+        var righe = new Trasformazione[]{IDENTITA, ROTAZIONE_180, SPECCHIO_ORIZZONTALE, SPECCHIO_VERTICALE};
+        var diagonali = new Trasformazione[]{IDENTITA, ROTAZIONE_180, TRASPOSTA, ANTITRASPOSTA};
+        AMMESSE.put(CheckType.ALL, tutte);
+        AMMESSE.put(CheckType.LINEAR, tutte);
+        AMMESSE.put(CheckType.OBLIQUO, tutte);
+        AMMESSE.put(CheckType.HORIZONTAL, righe);
+        AMMESSE.put(CheckType.VERTICALE, righe);
+        AMMESSE.put(CheckType.DIAGONALE, diagonali);
+        AMMESSE.put(CheckType.ANTIDIAGONALE, diagonali);
+    }
+
+    /**
+     * Maps a cell of a board of the given size
+     *
+     * @param cella index of the cell, row by row
+     * @param size  side of the board
+     * @return index of the cell after the transformation
+     */
+    public int applica(int cella, int size) {
+        int row = cella / size, col = cella % size, n = size - 1;
+        return switch (this) {
+            case IDENTITA -> cella;
+            case ROTAZIONE_90 -> col * size + (n - row);
+            case ROTAZIONE_180 -> (n - row) * size + (n - col);
+            case ROTAZIONE_270 -> (n - col) * size + row;
+            case SPECCHIO_ORIZZONTALE -> row * size + (n - col);
+            case SPECCHIO_VERTICALE -> (n - row) * size + col;
+            case TRASPOSTA -> col * size + row;
+            case ANTITRASPOSTA -> (n - col) * size + (n - row);
+        };
+    }
+
+    public Trasformazione inversa() {
+        return switch (this) {
+            case ROTAZIONE_90 -> ROTAZIONE_270;
+            case ROTAZIONE_270 -> ROTAZIONE_90;
+            default -> this;
+        };
+    }
+
+    /**
+     * Transformations that map the winning lines of the check type onto themselves, so that
+     * two positions related by one of them have the same value. The array must not be modified.
+     */
+    public static Trasformazione[] ammesse(CheckType checkType) {
+        return AMMESSE.get(checkType);
+    }
+}
@@ -0,0 +1,131 @@
+package logic.metriche;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of durations in nanoseconds with the same idea of HdrHistogram: the values below
+ * {@value #ESATTI} have a bucket each, above that every power of two is split in {@value #SOTTO}
+ * linear buckets, so every value is kept with a relative error below 1/{@value #SOTTO} and the
+ * memory does not grow with the number of values recorded.
+ * <br>
+ * <br>
+ * Recording adds to {@link LongAdder}s, which spread the threads on different cells, so many
+ * threads recording together do not contend on the same counters; the buckets are created the first
+ * time a value falls in them. The percentiles read while other threads record are approximate but never wrong by more than
+ * the values recorded in the meantime.
+ */
+public class Istogramma {
+    private static final int BIT_SOTTO = 6;
+    private static final int SOTTO = 1 << BIT_SOTTO;
+    private static final int ESATTI = 2 * SOTTO;
+    //2^40 ns sono più di 18 minuti, i valori più grandi finiscono nell'ultimo bucket
+    private static final int ESPONENTE_MASSIMO = 40;
+    private static final int BUCKET = ESATTI + (ESPONENTE_MASSIMO - BIT_SOTTO) * SOTTO;
+
+    private final AtomicReferenceArray<LongAdder> conteggi = new AtomicReferenceArray<>(BUCKET);
+    private final LongAdder totale = new LongAdder();
+    private final LongAdder somma = new LongAdder();
+    private final LongAccumulator massimo = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param nanos duration to record, the negative ones count as 0
+     */
+    public void registra(long nanos) {
+        long valore = Math.max(0, nanos);
+        conteggio(bucket(valore)).increment();
+        totale.increment();
+        somma.add(valore);
+        massimo.accumulate(valore);
+    }
+
+    private LongAdder conteggio(int bucket) {
+        var conteggio = conteggi.get(bucket);
+        if (conteggio != null)
+            return conteggio;
+        var nuovo = new LongAdder();
+        var esistente = conteggi.compareAndExchange(bucket, null, nuovo);
+        return esistente == null ? nuovo : esistente;
+    }
+
+    private static int bucket(long valore) {
+        if (valore < ESATTI)
+            return (int) valore;
+        int esponente = 63 - Long.numberOfLeadingZeros(valore);
+        if (esponente >= ESPONENTE_MASSIMO)
+            return BUCKET - 1;
+        // i primi BIT_SOTTO + 1 bit del valore scelgono il bucket nella sua potenza di due
+        int sotto = (int) (valore >>> (esponente - BIT_SOTTO)) - SOTTO;
+        return ESATTI + (esponente - BIT_SOTTO - 1) * SOTTO + sotto;
+    }
+
+    //valore più alto che finisce nel bucket
+    private static long massimoDel(int bucket) {
+        if (bucket < ESATTI)
+            return bucket;
+        int esponente = (bucket - ESATTI) / SOTTO + BIT_SOTTO + 1;
+        long sotto = (bucket - ESATTI) % SOTTO + SOTTO;
+        return ((sotto + 1) << (esponente - BIT_SOTTO)) - 1;
+    }
+
+    public long getConteggio() {
+        return totale.sum();
+    }
+
+    public long getMassimo() {
+        return massimo.get();
+    }
+
+    /**
+     * @return the mean in nanoseconds, 0 if nothing was recorded
+     */
+    public double media() {
+        long n = totale.sum();
+        return n == 0 ? 0 : (double) somma.sum() / n;
+    }
+
+    /**
+     * @param percentile from 0 to 100
+     * @return the value in nanoseconds that the percentile of the recorded values does not exceed,
+     *         0 if nothing was recorded
+     */
+    public long percentile(double percentile) {
+        long n = totale.sum();
+        if (n == 0)
+            return 0;
+        long soglia = Math.max(1, (long) Math.ceil(n * Math.min(100, percentile) / 100));
+        long visti = 0;
+        for (int bucket = 0; bucket < BUCKET; bucket++) {
+            var conteggio = conteggi.get(bucket);
+            if (conteggio != null)
+                visti += conteggio.sum();
+            if (visti >= soglia)
+                return Math.min(massimoDel(bucket), getMassimo());
+        }
+        return getMassimo();
+    }
+
+    /**
+     * @return count, mean, p50, p90, p99 and max in milliseconds
+     */
+    public String riepilogo() {
+        return String.format("n=%d media=%.2f p50=%.2f p90=%.2f p99=%.2f max=%.2f ms",
+                getConteggio(), media() / 1e6, percentile(50) / 1e6, percentile(90) / 1e6,
+                percentile(99) / 1e6, getMassimo() / 1e6);
+    }
+
+    /**
+     * Forgets every value. The values recorded at the same time may be lost or kept.
+     */
+    public void azzera() {
+        for (int bucket = 0; bucket < BUCKET; bucket++) {
+            var conteggio = conteggi.get(bucket);
+            if (conteggio != null)
+                conteggio.reset();
+        }
+        totale.reset();
+        somma.reset();
+        massimo.reset();
+    }
+}
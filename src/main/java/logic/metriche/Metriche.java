@@ -0,0 +1,198 @@
+package logic.metriche;
+
+import logic.BitBoard;
+import logic.enums.Difficulty;
+import logic.search.RisultatoParallelo;
+import logic.search.TranspositionTable;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of what the engine does: the time of every move of the AI by {@link Difficulty} and
+ * board size, the positions searched, the playouts simulated, the hit rate of the shared
+ * {@link TranspositionTable} and the time of the writes of the saves and of the game history.
+ * <br>
+ * <br>
+ * Everything is recorded without locks and without allocating, see {@link Istogramma}, so it can stay
+ * on in the UI, the server and the searches. The tournament ({@link logic.torneo.Arena}) does not record
+ * its moves, it counts them itself.
+ * The metrics are read through JMX (<code>tris:type=Metriche</code>, see {@link MetricheMBean})
+ * or from the overlay of the board.
+ */
+@Slf4j
+public class Metriche implements MetricheMBean {
+    public static final String NOME_JMX = "tris:type=Metriche";
+    private static final long NANOS_MASSIMI = (1L << 48) - 1;
+
+    /**
+     * The last move decided by an AI
+     */
+    public record Mossa(Difficulty difficulty, int size, long nanos) {
+    }
+
+    private static final int SIZE = BitBoard.MAX_SIZE + 1;
+
+    //[difficoltà * SIZE + size], creati alla prima mossa
+    private final AtomicReferenceArray<Istogramma> mosse = new AtomicReferenceArray<>(Difficulty.values().length * SIZE);
+    private final LongAdder nodi = new LongAdder();
+    private final LongAdder playout = new LongAdder();
+    @Getter
+    private final Istogramma salvataggi = new Istogramma();
+    @Getter
+    private final Istogramma storico = new Istogramma();
+    //ultima mossa in un long, difficoltà e size negli 8 + 8 bit alti e nanosecondi nei 48 bassi, -1 se non c'è
+    private volatile long ultimaMossa = -1;
+    //nodi al secondo di ogni thread nell'ultima ricerca parallela
+    private volatile double[] nodiAlSecondo = new double[0];
+
+    public static Metriche getIstanza() {
+        return Istanza.METRICHE;
+    }
+
+    private static final class Istanza {
+        private static final Metriche METRICHE = registra(new Metriche());
+    }
+
+    private static Metriche registra(Metriche metriche) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(metriche, new ObjectName(NOME_JMX));
+        } catch (JMException e) {
+            log.warn("Metriche non registrate in JMX", e);
+        }
+        return metriche;
+    }
+
+    /**
+     * Records the time an AI took to decide a move
+     */
+    public void mossa(Difficulty difficulty, int size, long nanos) {
+        int indice = difficulty.ordinal() * SIZE + size;
+        var istogramma = mosse.get(indice);
+        if (istogramma == null) {
+            var nuovo = new Istogramma();
+            istogramma = mosse.compareAndExchange(indice, null, nuovo);
+            if (istogramma == null)
+                istogramma = nuovo;
+        }
+        istogramma.registra(nanos);
+        ultimaMossa = (long) difficulty.ordinal() << 56 | (long) size << 48 | Math.clamp(nanos, 0, NANOS_MASSIMI);
+    }
+
+    /**
+     * @return the last move recorded, null if none
+     */
+    public Mossa getUltimaMossa() {
+        long ultima = ultimaMossa;
+        if (ultima == -1)
+            return null;
+        return new Mossa(Difficulty.values()[(int) (ultima >>> 56)], (int) (ultima >>> 48) & 0xFF, ultima & NANOS_MASSIMI);
+    }
+
+    public void nodi(long nodi) {
+        this.nodi.add(nodi);
+    }
+
+    /**
+     * Records the nodes of a parallel search and keeps the speed of each of its threads
+     */
+    public void ricerca(RisultatoParallelo ricerca) {
+        nodi(ricerca.nodiTotali());
+        nodiAlSecondo = ricerca.nodiAlSecondo();
+    }
+
+    public void playout(long playout) {
+        this.playout.add(playout);
+    }
+
+    /**
+     * @return the latencies of the moves, null if no move of the difficulty and size was recorded
+     */
+    public Istogramma latenze(Difficulty difficulty, int size) {
+        return size < SIZE ? mosse.get(difficulty.ordinal() * SIZE + size) : null;
+    }
+
+    @Override
+    public long getMosse() {
+        long totale = 0;
+        for (int i = 0; i < mosse.length(); i++) {
+            var istogramma = mosse.get(i);
+            if (istogramma != null)
+                totale += istogramma.getConteggio();
+        }
+        return totale;
+    }
+
+    @Override
+    public long getNodiCercati() {
+        return nodi.sum();
+    }
+
+    @Override
+    public double[] getNodiAlSecondoPerThread() {
+        return nodiAlSecondo.clone();
+    }
+
+    @Override
+    public long getPlayoutMonteCarlo() {
+        return playout.sum();
+    }
+
+    @Override
+    public double getHitRateTabella() {
+        return TranspositionTable.getCondivisa().getHitRate();
+    }
+
+    @Override
+    public double getOccupazioneTabella() {
+        return TranspositionTable.getCondivisa().getOccupazione();
+    }
+
+    @Override
+    public String[] getLatenzeMosse() {
+        List<String> righe = new ArrayList<>();
+        for (var difficulty : Difficulty.values()) {
+            for (int size = 0; size < SIZE; size++) {
+                var istogramma = mosse.get(difficulty.ordinal() * SIZE + size);
+                if (istogramma != null)
+                    righe.add(difficulty + " " + size + "x" + size + ": " + istogramma.riepilogo());
+            }
+        }
+        return righe.toArray(String[]::new);
+    }
+
+    @Override
+    public String getLatenzaSalvataggi() {
+        return salvataggi.riepilogo();
+    }
+
+    @Override
+    public String getLatenzaStorico() {
+        return storico.riepilogo();
+    }
+
+    @Override
+    public double latenzaMossa(String difficulty, int size, double percentile) {
+        var latenze = latenze(Difficulty.valueOf(difficulty), size);
+        return latenze == null ? 0 : latenze.percentile(percentile) / 1e6;
+    }
+
+    @Override
+    public void azzera() {
+        for (int i = 0; i < mosse.length(); i++)
+            mosse.set(i, null);
+        nodi.reset();
+        playout.reset();
+        salvataggi.azzera();
+        storico.azzera();
+        ultimaMossa = -1;
+        nodiAlSecondo = new double[0];
+    }
+}
@@ -0,0 +1,56 @@
+package logic.metriche;
+
+/**
+ * JMX view of the {@link Metriche}, registered as <code>tris:type=Metriche</code>.
+ * The durations are in milliseconds.
+ */
+public interface MetricheMBean {
+    /**
+     * @return moves decided by every AI
+     */
+    long getMosse();
+
+    /**
+     * @return positions searched by the negamax of EXTREME
+     */
+    long getNodiCercati();
+
+    /**
+     * @return nodes per second of every thread in the last parallel search of EXTREME, the calling thread first
+     */
+    double[] getNodiAlSecondoPerThread();
+
+    /**
+     * @return playouts simulated by MONTE_CARLO
+     */
+    long getPlayoutMonteCarlo();
+
+    /**
+     * @return fraction of the probes of the shared transposition table that found the position
+     */
+    double getHitRateTabella();
+
+    /**
+     * @return fraction of the shared transposition table in use
+     */
+    double getOccupazioneTabella();
+
+    /**
+     * @return one row for every difficulty and board size played, with count, mean, percentiles and max
+     */
+    String[] getLatenzeMosse();
+
+    String getLatenzaSalvataggi();
+
+    String getLatenzaStorico();
+
+    /**
+     * @param difficulty name of the difficulty
+     * @param size       side of the board
+     * @param percentile from 0 to 100
+     * @return the latency of a move at the percentile, 0 if no move was recorded
+     */
+    double latenzaMossa(String difficulty, int size, double percentile);
+
+    void azzera();
+}
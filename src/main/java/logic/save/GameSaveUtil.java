@@ -4,16 +4,55 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.*;
 
 public class GameSaveUtil {
     private static final ObjectMapper mapper = new ObjectMapper();
 
     public static void salvaSuFile(GameSave save, String filePath) throws IOException {
-        mapper.writerWithDefaultPrettyPrinter().writeValue(new File(filePath), save);
+        scriviAtomico(serializza(save), Path.of(filePath));
     }
 
     public static GameSave caricaDaFile(String filePath) throws IOException {
         return mapper.readValue(new File(filePath), GameSave.class);
     }
 
-}
\ No newline at end of file
+    /**
+     * @return the save as compact JSON
+     */
+    public static byte[] serializza(GameSave save) throws IOException {
+        return mapper.writeValueAsBytes(save);
+    }
+
+    public static GameSave deserializza(byte[] json) throws IOException {
+        return mapper.readValue(json, GameSave.class);
+    }
+
+    /**
+     * Writes the bytes to a temporary file next to the destination, forces them to disk and then renames
+     * it over the destination: a crash in the middle leaves the old file intact, never a half-written one
+     */
+    public static void scriviAtomico(byte[] contenuto, Path destinazione) throws IOException {
+        Path cartella = destinazione.toAbsolutePath().getParent();
+        Path temporaneo = cartella.resolve(destinazione.getFileName() + ".tmp");
+        try (var canale = FileChannel.open(temporaneo, CREATE, WRITE, TRUNCATE_EXISTING)) {
+            var buffer = ByteBuffer.wrap(contenuto);
+            while (buffer.hasRemaining())
+                canale.write(buffer);
+            canale.force(true);
+        }
+        try {
+            Files.move(temporaneo, destinazione, ATOMIC_MOVE, REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporaneo, destinazione, REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package logic.save;
+
+import logic.GameState;
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.enums.Symbol;
+
+/**
+ * A finished game as stored in the {@link StoricoPartite}
+ *
+ * @param size          side of the board
+ * @param checkType     winning lines used
+ * @param difficulty    difficulty of the AI
+ * @param simboloPlayer symbol of the human player, the AI had the other one
+ * @param primo         symbol that moved first
+ * @param vincitore     symbol that won, {@link Symbol#EMPTY} for a tie
+ * @param mosse         cells played, in order, alternating from {@link #primo}
+ */
+public record Partita(int size, CheckType checkType, Difficulty difficulty, Symbol simboloPlayer,
+                      Symbol primo, Symbol vincitore, int[] mosse) {
+
+    /**
+     * Builds the record of the game played on the state
+     */
+    public static Partita da(GameState stato, Difficulty difficulty, Symbol simboloPlayer) {
+        int[] mosse = stato.getMosse();
+        Symbol primo = mosse.length == 0 ? Symbol.X : stato.getSimbolo(mosse[0]);
+        return new Partita(stato.getSize(), stato.getCheckType(), difficulty, simboloPlayer,
+                primo, stato.getVincitore(), mosse);
+    }
+
+    /**
+     * @return true if the human player won
+     */
+    public boolean vintaDalPlayer() {
+        return vincitore == simboloPlayer;
+    }
+
+    /**
+     * @return true if the AI won
+     */
+    public boolean vintaDallAi() {
+        return vincitore != Symbol.EMPTY && vincitore != simboloPlayer;
+    }
+
+    /**
+     * Replays the moves on a new state
+     */
+    public GameState rigioca() {
+        var stato = new GameState(size, checkType);
+        stato.setTurno(primo);
+        for (int mossa : mosse)
+            stato.move(mossa);
+        return stato;
+    }
+}
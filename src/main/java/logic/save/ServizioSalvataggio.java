@@ -0,0 +1,136 @@
+package logic.save;
+
+import logic.metriche.Metriche;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Write-behind persistence of a {@link GameSave}: {@link #salva} only serializes the save and returns,
+ * the file is written later by a background thread with {@link GameSaveUtil#scriviAtomico}.
+ * <br>
+ * <br>
+ * The saves that arrive within {@link #getRitardo()} milliseconds of each other are coalesced, so a burst of
+ * changes becomes one write of the latest one. What is still pending when the JVM exits is written by a
+ * shutdown hook.
+ * <br>
+ * <br>
+ * The last save is also kept in memory: {@link #getSnapshot()} returns it without reading the file.
+ */
+@Slf4j
+public class ServizioSalvataggio {
+    public static final String FILE = "save.json";
+
+    @Getter
+    private final Path file;
+    @Getter
+    private final long ritardo;
+    private final ScheduledExecutorService scrittore;
+    //ultimo salvataggio noto, scritto o no, in JSON
+    private volatile byte[] snapshot;
+    //salvataggio ancora da scrivere, null se il file è aggiornato
+    private final AtomicReference<byte[]> inAttesa = new AtomicReference<>();
+    private final AtomicBoolean programmato = new AtomicBoolean();
+
+    /**
+     * Service of {@value #FILE} in the working directory, the delay comes from the system property
+     * <code>tris.salvataggio.ritardo</code> (200 milliseconds by default)
+     */
+    public static ServizioSalvataggio getIstanza() {
+        return Istanza.SERVIZIO;
+    }
+
+    private static final class Istanza {
+        private static final ServizioSalvataggio SERVIZIO =
+                new ServizioSalvataggio(Path.of(FILE), Long.getLong("tris.salvataggio.ritardo", 200));
+    }
+
+    /**
+     * @param file    file of the saves, read once here if it exists
+     * @param ritardo milliseconds a save waits for the next ones before being written
+     */
+    public ServizioSalvataggio(Path file, long ritardo) {
+        this.file = file;
+        this.ritardo = ritardo;
+        this.scrittore = Executors.newSingleThreadScheduledExecutor(r -> {
+            var thread = new Thread(r, "salvataggio");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            snapshot = Files.readAllBytes(file);
+        } catch (NoSuchFileException e) {
+            log.info("Nessun salvataggio in {}", file);
+        } catch (IOException e) {
+            log.error("Errore nel caricamento di {}", file, e);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "salvataggio-chiusura"));
+    }
+
+    /**
+     * @return a new copy of the last save, an empty save if there is none or it cannot be read
+     */
+    public GameSave getSnapshot() {
+        var json = snapshot;
+        if (json == null)
+            return new GameSave();
+        try {
+            return GameSaveUtil.deserializza(json);
+        } catch (IOException e) {
+            log.error("Salvataggio in {} non valido", file, e);
+            return new GameSave();
+        }
+    }
+
+    /**
+     * Takes the save, it is written to the file in background
+     */
+    public void salva(GameSave save) {
+        byte[] json;
+        try {
+            json = GameSaveUtil.serializza(save);
+        } catch (IOException e) {
+            log.error("Impossibile serializzare il salvataggio", e);
+            return;
+        }
+        snapshot = json;
+        inAttesa.set(json);
+        if (programmato.compareAndSet(false, true))
+            scrittore.schedule(this::scriviInAttesa, ritardo, TimeUnit.MILLISECONDS);
+    }
+
+    private void scriviInAttesa() {
+        // chi salva da qui in poi programma una nuova scrittura
+        programmato.set(false);
+        flush();
+    }
+
+    /**
+     * Writes now the save still pending, if any
+     */
+    public synchronized void flush() {
+        byte[] json = inAttesa.getAndSet(null);
+        if (json == null)
+            return;
+        long inizio = System.nanoTime();
+        try {
+            GameSaveUtil.scriviAtomico(json, file);
+            long durata = System.nanoTime() - inizio;
+            Metriche.getIstanza().getSalvataggi().registra(durata);
+            log.debug("Salvataggio scritto in {} in {} ms", file, durata / 1_000_000);
+        } catch (IOException e) {
+            log.error("Errore nella scrittura di {}", file, e);
+            // resta in attesa per il prossimo tentativo, a meno che non ne sia arrivato uno più recente
+            inAttesa.compareAndSet(null, json);
+        }
+    }
+}
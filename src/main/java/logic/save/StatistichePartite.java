@@ -0,0 +1,214 @@
+package logic.save;
+
+import logic.Simmetrie;
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.enums.Symbol;
+import logic.enums.Trasformazione;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Aggregates of the games of the {@link StoricoPartite}, grouped by {@link Categoria}: how many games
+ * the player won, tied and lost, how long they lasted and which openings were played.
+ * <br>
+ * <br>
+ * The history is read once as a stream ({@link StoricoPartite#scorri}), keeping only the counters, and then
+ * every new game is added with {@link #aggiungi}, so the menu reads the breakdowns without scanning the file.
+ * <br>
+ * <br>
+ * The openings are merged by symmetry: a first move is counted on the smallest cell among the ones
+ * it is mapped to by the transformations allowed by the {@link CheckType}, so on a 3x3 with
+ * {@link CheckType#ALL} every corner is counted as cell 0.
+ */
+@Slf4j
+public class StatistichePartite {
+
+    public record Categoria(Difficulty difficulty, CheckType checkType, int size) {
+    }
+
+    /**
+     * Results of the human player in a group of games
+     *
+     * @param mosse moves of all the games together
+     */
+    public record Riepilogo(long partite, long vittorie, long pareggi, long sconfitte, long mosse) {
+        public static final Riepilogo VUOTO = new Riepilogo(0, 0, 0, 0, 0);
+
+        public double tassoVittorie() {
+            return partite == 0 ? 0 : (double) vittorie / partite;
+        }
+
+        public double tassoPareggi() {
+            return partite == 0 ? 0 : (double) pareggi / partite;
+        }
+
+        public double tassoSconfitte() {
+            return partite == 0 ? 0 : (double) sconfitte / partite;
+        }
+
+        public double lunghezzaMedia() {
+            return partite == 0 ? 0 : (double) mosse / partite;
+        }
+
+        public Riepilogo somma(Riepilogo altro) {
+            return new Riepilogo(partite + altro.partite, vittorie + altro.vittorie, pareggi + altro.pareggi,
+                    sconfitte + altro.sconfitte, mosse + altro.mosse);
+        }
+    }
+
+    /**
+     * @param cella   first move, merged by symmetry
+     * @param partite games opened with it
+     */
+    public record Apertura(int cella, long partite) {
+    }
+
+    private static final class Aggregato {
+        private long partite, vittorie, pareggi, sconfitte, mosse;
+        private final long[] aperture;
+        //[cella] -> cella più piccola tra le simmetriche
+        private final int[] canonica;
+
+        private Aggregato(Categoria categoria) {
+            int celle = categoria.size() * categoria.size();
+            this.aperture = new long[celle];
+            this.canonica = new int[celle];
+            for (int cella = 0; cella < celle; cella++) {
+                int minima = cella;
+                for (var trasformazione : Trasformazione.ammesse(categoria.checkType()))
+                    minima = Math.min(minima, Simmetrie.aCanonica(cella, categoria.size(), trasformazione));
+                canonica[cella] = minima;
+            }
+        }
+
+        private Riepilogo riepilogo() {
+            return new Riepilogo(partite, vittorie, pareggi, sconfitte, mosse);
+        }
+    }
+
+    private final Map<Categoria, Aggregato> aggregati = new HashMap<>();
+
+    private static final CompletableFuture<StatistichePartite> ISTANZA = new CompletableFuture<>();
+    private static final AtomicBoolean AVVIATA = new AtomicBoolean();
+
+    /**
+     * Starts reading the history of the application on a background thread, if not started yet
+     */
+    public static void precarica() {
+        if (AVVIATA.compareAndSet(false, true))
+            Thread.ofPlatform().daemon().name("statistiche").start(() -> ISTANZA.complete(carica()));
+    }
+
+    /**
+     * Statistics of the history of the application, waits for the history to be read
+     */
+    public static StatistichePartite getIstanza() {
+        precarica();
+        return ISTANZA.join();
+    }
+
+    /**
+     * Adds a finished game to the statistics and appends it to the {@link StoricoPartite}, without waiting.
+     * While the history is still being read both happen on the reading thread once it is done, so the
+     * game is counted once and the caller, the Swing event thread too, never waits for the read.
+     */
+    public static void registra(Partita partita) {
+        precarica();
+        ISTANZA.thenAccept(statistiche -> {
+            statistiche.aggiungi(partita);
+            StoricoPartite.getIstanza().aggiungi(partita);
+        });
+    }
+
+    /**
+     * @return the statistics if the history has already been read, without waiting
+     */
+    public static Optional<StatistichePartite> getSeCaricata() {
+        return Optional.ofNullable(ISTANZA.getNow(null));
+    }
+
+    private static StatistichePartite carica() {
+        try {
+            return da(StoricoPartite.getIstanza());
+        } catch (IOException | RuntimeException e) {
+            log.error("Storico delle partite non leggibile, le statistiche partono da zero", e);
+            return new StatistichePartite();
+        }
+    }
+
+    /**
+     * Reads the whole history as a stream and aggregates it
+     */
+    public static StatistichePartite da(StoricoPartite storico) throws IOException {
+        var statistiche = new StatistichePartite();
+        long inizio = System.nanoTime();
+        long partite = storico.scorri(statistiche::aggiungi);
+        log.debug("Statistiche di {} partite calcolate in {} ms", partite, (System.nanoTime() - inizio) / 1_000_000);
+        return statistiche;
+    }
+
+    /**
+     * Adds a game to the aggregates of its category
+     */
+    public synchronized void aggiungi(Partita partita) {
+        var categoria = new Categoria(partita.difficulty(), partita.checkType(), partita.size());
+        var aggregato = aggregati.computeIfAbsent(categoria, Aggregato::new);
+        aggregato.partite++;
+        if (partita.vincitore() == Symbol.EMPTY)
+            aggregato.pareggi++;
+        else if (partita.vintaDalPlayer())
+            aggregato.vittorie++;
+        else
+            aggregato.sconfitte++;
+        aggregato.mosse += partita.mosse().length;
+        if (partita.mosse().length > 0)
+            aggregato.aperture[aggregato.canonica[partita.mosse()[0]]]++;
+    }
+
+    public synchronized Riepilogo riepilogo(Categoria categoria) {
+        var aggregato = aggregati.get(categoria);
+        return aggregato == null ? Riepilogo.VUOTO : aggregato.riepilogo();
+    }
+
+    /**
+     * @return the results against the difficulty on every board and mode
+     */
+    public synchronized Riepilogo riepilogo(Difficulty difficulty) {
+        var totale = Riepilogo.VUOTO;
+        for (var voce : aggregati.entrySet())
+            if (voce.getKey().difficulty() == difficulty)
+                totale = totale.somma(voce.getValue().riepilogo());
+        return totale;
+    }
+
+    /**
+     * @return a copy of the results of every category played at least once
+     */
+    public synchronized Map<Categoria, Riepilogo> getRiepiloghi() {
+        Map<Categoria, Riepilogo> riepiloghi = new LinkedHashMap<>();
+        for (var voce : aggregati.entrySet())
+            riepiloghi.put(voce.getKey(), voce.getValue().riepilogo());
+        return riepiloghi;
+    }
+
+    /**
+     * @param quante how many openings to return at most
+     * @return the most played first moves of the category, from the most common
+     */
+    public synchronized List<Apertura> aperture(Categoria categoria, int quante) {
+        var aggregato = aggregati.get(categoria);
+        if (aggregato == null)
+            return List.of();
+        List<Apertura> aperture = new ArrayList<>();
+        for (int cella = 0; cella < aggregato.aperture.length; cella++)
+            if (aggregato.aperture[cella] > 0)
+                aperture.add(new Apertura(cella, aggregato.aperture[cella]));
+        aperture.sort(Comparator.comparingLong(Apertura::partite).reversed());
+        return aperture.subList(0, Math.min(quante, aperture.size()));
+    }
+}
@@ -0,0 +1,314 @@
+package logic.save;
+
+import logic.BitBoard;
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.enums.Symbol;
+import logic.metriche.Metriche;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * Append-only binary log of the finished games, see {@link Partita}.
+ * <br>
+ * <br>
+ * <b>Format</b>: the file starts with {@link #MAGIC} and a version byte, then every game is a record
+ * with the length of its body as a varint and the body:
+ * <ul>
+ *     <li>size, {@link CheckType} and {@link Difficulty} (one byte each)</li>
+ *     <li>one byte of flags: symbol of the player (bit 0, 0 for X), symbol that moved first (bit 1)
+ *     and winner (bits 2-3: 0 tie, 1 X, 2 O)</li>
+ *     <li>number of moves and every move, as varints</li>
+ * </ul>
+ * Varints are unsigned LEB128: 7 bits per byte, the high bit set on every byte but the last, so a
+ * move on a board up to 11x11 takes one byte.
+ * <br>
+ * <br>
+ * <b>Crashes</b>: a record cut by a crash is ignored by the readers, and before the first append the
+ * file is truncated to the end of its last complete record, so the next games are not written after
+ * the partial bytes. Every append is forced to the disk before the next one. Only a record whose bytes
+ * run out at the end of the file counts as cut: a length that is not a valid varint or is longer than
+ * the body of a 16x16 game is corruption, the readers fail with an {@link IOException} and the file is
+ * not touched.
+ * <br>
+ * <br>
+ * {@link #aggiungi} appends on a background thread; {@link #chiudi} waits for the games still queued,
+ * and for the log of {@link #getIstanza()} it runs when the JVM exits. {@link #scorri} reads the file through memory-mapped windows, so scanning millions of
+ * games does not go through any stream or JSON parser.
+ */
+@Slf4j
+public class StoricoPartite implements AutoCloseable {
+    public static final int MAGIC = 0x54525348; // "TRSH"
+    private static final int VERSIONE = 1;
+    private static final int INTESTAZIONE = 5;
+    //finestra mappata alla volta, i file più grandi si leggono a pezzi
+    private static final long FINESTRA = 1L << 30;
+    //corpo più lungo possibile: 4 byte fissi, poi il numero di mosse e le mosse di un 16x16, varint di al più 3 byte
+    private static final int CORPO_MASSIMO = 4 + 3 * (1 + BitBoard.MAX_SIZE * BitBoard.MAX_SIZE);
+
+    @Getter
+    private final Path file;
+    private final ExecutorService scrittore;
+    //la coda del file è stata controllata dal primo appendi
+    private boolean verificato;
+
+    public static StoricoPartite getIstanza() {
+        return Istanza.STORICO;
+    }
+
+    private static final class Istanza {
+        private static final StoricoPartite STORICO =
+                chiudiAllUscita(new StoricoPartite(Path.of(System.getProperty("tris.storico", "storico.bin"))));
+
+        private static StoricoPartite chiudiAllUscita(StoricoPartite storico) {
+            Runtime.getRuntime().addShutdownHook(new Thread(storico::chiudi, "storico-chiusura"));
+            return storico;
+        }
+    }
+
+    public StoricoPartite(Path file) {
+        this.file = file;
+        this.scrittore = Executors.newSingleThreadExecutor(r -> {
+            var thread = new Thread(r, "storico");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the game to be appended to the log
+     */
+    public void aggiungi(Partita partita) {
+        byte[] record = codifica(partita);
+        scrittore.execute(() -> {
+            long inizio = System.nanoTime();
+            try {
+                appendi(record);
+                Metriche.getIstanza().getStorico().registra(System.nanoTime() - inizio);
+            } catch (IOException e) {
+                log.error("Errore nella scrittura dello storico {}", file, e);
+            }
+        });
+    }
+
+    /**
+     * Waits for the games still queued to be written and stops the writer thread; then the log can only be read
+     */
+    public void chiudi() {
+        scrittore.shutdown();
+        try {
+            if (!scrittore.awaitTermination(5, TimeUnit.SECONDS))
+                log.warn("Storico {} chiuso con partite ancora da scrivere", file);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        chiudi();
+    }
+
+    private synchronized void appendi(byte[] record) throws IOException {
+        try (var canale = FileChannel.open(file, CREATE, READ, WRITE)) {
+            if (!verificato) {
+                ripara(canale);
+                verificato = true;
+            }
+            canale.position(canale.size());
+            if (canale.size() == 0) {
+                var intestazione = ByteBuffer.allocate(INTESTAZIONE).putInt(MAGIC).put((byte) VERSIONE).flip();
+                while (intestazione.hasRemaining())
+                    canale.write(intestazione);
+            }
+            var buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining())
+                canale.write(buffer);
+            canale.force(false);
+        }
+    }
+
+    //tronca il file alla fine dell'ultimo record completo, i byte di un record interrotto sparirebbero in mezzo al file
+    private void ripara(FileChannel canale) throws IOException {
+        long dimensione = canale.size();
+        if (dimensione == 0)
+            return;
+        if (dimensione < INTESTAZIONE) {
+            log.warn("Storico {}: intestazione incompleta, il file riparte da zero", file);
+            canale.truncate(0);
+            return;
+        }
+        long fine = leggi(canale, null).fine();
+        if (fine < dimensione) {
+            log.warn("Storico {}: tolti {} byte di un record incompleto", file, dimensione - fine);
+            canale.truncate(fine);
+        }
+    }
+
+    /**
+     * @return the record of the game: the length of the body as a varint and the body
+     */
+    static byte[] codifica(Partita partita) {
+        var corpo = new ByteArrayOutputStream(8 + partita.mosse().length);
+        corpo.write(partita.size());
+        corpo.write(partita.checkType().ordinal());
+        corpo.write(partita.difficulty().ordinal());
+        int flag = (partita.simboloPlayer() == Symbol.O ? 1 : 0)
+                | (partita.primo() == Symbol.O ? 2 : 0)
+                | (partita.vincitore() == Symbol.EMPTY ? 0 : partita.vincitore() == Symbol.X ? 1 : 2) << 2;
+        corpo.write(flag);
+        scriviVarint(corpo, partita.mosse().length);
+        for (int mossa : partita.mosse())
+            scriviVarint(corpo, mossa);
+
+        var record = new ByteArrayOutputStream(corpo.size() + 2);
+        scriviVarint(record, corpo.size());
+        record.writeBytes(corpo.toByteArray());
+        return record.toByteArray();
+    }
+
+    private static void scriviVarint(ByteArrayOutputStream out, int valore) {
+        while ((valore & ~0x7F) != 0) {
+            out.write((valore & 0x7F) | 0x80);
+            valore >>>= 7;
+        }
+        out.write(valore);
+    }
+
+    //-1 se il buffer finisce prima del varint, eccezione se il varint va oltre i 31 bit
+    private static int leggiVarint(ByteBuffer in) throws IOException {
+        int valore = 0;
+        for (int shift = 0; shift < 28; shift += 7) {
+            if (!in.hasRemaining())
+                return -1;
+            int b = in.get() & 0xFF;
+            valore |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+                return valore;
+        }
+        if (!in.hasRemaining())
+            return -1;
+        // il quinto byte ha posto solo per i 3 bit che restano
+        int b = in.get() & 0xFF;
+        if ((b & ~0x07) != 0)
+            throw new IOException("Varint non valido");
+        return valore | b << 28;
+    }
+
+    //nel corpo un varint deve essere completo
+    private static int leggiVarintCompleto(ByteBuffer corpo) throws IOException {
+        int valore = leggiVarint(corpo);
+        if (valore < 0)
+            throw new IOException("Varint incompleto");
+        return valore;
+    }
+
+    private static Partita decodifica(ByteBuffer corpo) throws IOException {
+        int size = corpo.get() & 0xFF;
+        var checkType = CheckType.values()[corpo.get() & 0xFF];
+        var difficulty = Difficulty.values()[corpo.get() & 0xFF];
+        int flag = corpo.get() & 0xFF;
+        Symbol player = (flag & 1) == 0 ? Symbol.X : Symbol.O;
+        Symbol primo = (flag & 2) == 0 ? Symbol.X : Symbol.O;
+        Symbol vincitore = switch ((flag >> 2) & 3) {
+            case 1 -> Symbol.X;
+            case 2 -> Symbol.O;
+            default -> Symbol.EMPTY;
+        };
+        int[] mosse = new int[leggiVarintCompleto(corpo)];
+        for (int i = 0; i < mosse.length; i++)
+            mosse[i] = leggiVarintCompleto(corpo);
+        return new Partita(size, checkType, difficulty, player, primo, vincitore, mosse);
+    }
+
+    /**
+     * Reads every game of the log, in the order they were played. A record that cannot be decoded is
+     * skipped, the ones after it are still read.
+     *
+     * @param visitatore called for every complete game
+     * @return the number of games read
+     * @throws IOException if the file is not a log or the length of a record is corrupt
+     */
+    public long scorri(Consumer<Partita> visitatore) throws IOException {
+        if (!Files.exists(file))
+            return 0;
+        try (var canale = FileChannel.open(file, READ)) {
+            if (canale.size() < INTESTAZIONE)
+                return 0;
+            var lettura = leggi(canale, visitatore);
+            if (lettura.fine() < canale.size())
+                log.warn("Storico {}: ultimo record incompleto ignorato", file);
+            return lettura.partite();
+        }
+    }
+
+    /**
+     * @param partite games read
+     * @param fine    offset right after the last complete record
+     */
+    private record Lettura(long partite, long fine) {
+    }
+
+    //scorre i record seguendo le lunghezze, decodifica solo se c'è un visitatore
+    //una lunghezza non valida non permette di trovare i record dopo: è un errore, non una coda da togliere
+    private Lettura leggi(FileChannel canale, Consumer<Partita> visitatore) throws IOException {
+        long dimensione = canale.size();
+        MappedByteBuffer finestra = canale.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(dimensione, FINESTRA));
+        if (finestra.getInt() != MAGIC || finestra.get() != VERSIONE)
+            throw new IOException("Formato dello storico non valido: " + file);
+
+        long partite = 0;
+        long inizioFinestra = 0;
+        while (true) {
+            int inizioRecord = finestra.position();
+            int lunghezza;
+            try {
+                lunghezza = leggiVarint(finestra);
+            } catch (IOException e) {
+                throw corrotto(inizioFinestra + inizioRecord, e.getMessage());
+            }
+            if (lunghezza == 0 || lunghezza > CORPO_MASSIMO)
+                throw corrotto(inizioFinestra + inizioRecord, "lunghezza " + lunghezza);
+            if (lunghezza > 0 && finestra.remaining() >= lunghezza) {
+                var corpo = finestra.slice(finestra.position(), lunghezza);
+                finestra.position(finestra.position() + lunghezza);
+                if (visitatore != null) {
+                    Partita partita;
+                    try {
+                        partita = decodifica(corpo);
+                    } catch (IOException | RuntimeException e) {
+                        log.warn("Storico {}: record non valido alla posizione {} ignorato", file, inizioFinestra + inizioRecord, e);
+                        continue;
+                    }
+                    visitatore.accept(partita);
+                }
+                partite++;
+                continue;
+            }
+            // mancano byte: o finisce la finestra o il file è stato troncato
+            long posizione = inizioFinestra + inizioRecord;
+            if (inizioFinestra + finestra.limit() >= dimensione)
+                return new Lettura(partite, posizione);
+            inizioFinestra = posizione;
+            finestra = canale.map(FileChannel.MapMode.READ_ONLY, posizione, Math.min(dimensione - posizione, FINESTRA));
+        }
+    }
+
+    private IOException corrotto(long posizione, String motivo) {
+        return new IOException("Storico " + file + " corrotto alla posizione " + posizione + ": " + motivo);
+    }
+}
@@ -0,0 +1,334 @@
+package logic.search;
+
+import logic.GameState;
+import logic.Simulazione;
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Monte Carlo Tree Search with the UCT formula. Instead of a depth-limited search it plays random
+ * games to the end (see {@link Simulazione}) and grows a tree towards the moves that win most
+ * often, so it keeps playing sensibly on the big boards where alpha-beta cannot reach the end.
+ * <br>
+ * <br>
+ * <b>Parallel</b>: every thread (the calling one, and a virtual thread for each of the others) walks the same
+ * tree. A node counts the visit as soon as a thread walks through it and the result only when the playout is
+ * over: until then the visit weighs as a loss (the <i>virtual loss</i>), so the other threads prefer different
+ * branches.
+ * <br>
+ * <br>
+ * <b>Memory</b>: a node creates the array of its moves only after {@value #SOGLIA_ESPANSIONE} visits,
+ * and every child is created the first time it is chosen.
+ * <br>
+ * <br>
+ * <b>Reuse</b>: the tree of the last search is kept. When the next search starts from a position reached
+ * from its root with at most {@value #PLY_RIUSO} moves (the move played and the reply, or the reply alone after
+ * pondering on the position of the opponent), the subtree of those moves becomes the new root with all its
+ * playouts, and the rest of the tree is dropped.
+ * <br>
+ * <br>
+ * The number of threads comes from <code>tris.thread</code> like {@link RicercaParallela}, and
+ * the maximum number of playouts of a move from <code>tris.mcts.iterazioni</code> (0, the default,
+ * means only the time budget is used).
+ */
+@Slf4j
+public class Mcts {
+    private static final double ESPLORAZIONE = Math.sqrt(2);
+    private static final int SOGLIA_ESPANSIONE = 8;
+    private static final int PLY_RIUSO = 2;
+
+    @Getter
+    private final int thread;
+    @Getter
+    private final long iterazioniMassime;
+    //albero dell'ultima ricerca, null prima della prima
+    private Albero albero;
+    /**
+     * Generator the random generators of the playouts are split from, null for a new unseeded one
+     * at every search; with a seeded one and a limit of playouts the search is reproducible
+     */
+    @Setter
+    private SplittableRandom random;
+
+    public Mcts() {
+        this(Integer.getInteger("tris.thread", Runtime.getRuntime().availableProcessors()),
+                Long.getLong("tris.mcts.iterazioni", 0));
+    }
+
+    /**
+     * @param thread            number of threads that run the playouts
+     * @param iterazioniMassime maximum number of playouts of a move, 0 for no limit
+     */
+    public Mcts(int thread, long iterazioniMassime) {
+        if (thread < 1)
+            throw new IllegalArgumentException("Servono almeno un thread di ricerca: " + thread);
+        this.thread = thread;
+        this.iterazioniMassime = iterazioniMassime;
+    }
+
+    /**
+     * Searches the best move for the given symbol until the time budget expires or the playouts
+     * reach {@link #getIterazioniMassime()}. The state is left as it was received.
+     *
+     * @param stato   current state of the game, not finished
+     * @param simbolo symbol that has to move
+     * @param millis  time budget of the move, 0 for no limit
+     */
+    public RisultatoMcts cerca(GameState stato, Symbol simbolo, long millis) {
+        return cerca(stato, simbolo, millis, new AtomicBoolean());
+    }
+
+    /**
+     * Like {@link #cerca(GameState, Symbol, long)}, but it also stops early, with the playouts done
+     * so far, when the flag is set by another thread
+     */
+    public synchronized RisultatoMcts cerca(GameState stato, Symbol simbolo, long millis, AtomicBoolean interruzione) {
+        if (millis <= 0 && iterazioniMassime <= 0)
+            throw new IllegalArgumentException("Serve un limite di tempo o di iterazioni");
+        long inizio = System.nanoTime();
+        long scadenza = millis > 0 ? inizio + millis * 1_000_000 : Long.MAX_VALUE;
+
+        var turno = stato.getTurno();
+        stato.setTurno(simbolo);
+        var radice = radice(stato);
+        albero = new Albero(radice, stato.getHash(), stato.getNumeroMosse(), stato.getCheckType());
+        List<Future<Long>> lavori = new ArrayList<>();
+        long iterazioni;
+        // il thread chiamante è il primo thread di ricerca, come in RicercaParallela
+        try (var esecutore = Executors.newVirtualThreadPerTaskExecutor()) {
+            var seme = random != null ? random.split() : new SplittableRandom();
+            for (int i = 1; i < thread; i++) {
+                long budget = budget(i);
+                var copia = stato.copy();
+                var random = seme.split();
+                lavori.add(esecutore.submit(() -> lavora(radice, copia, random, scadenza, budget, interruzione)));
+            }
+            iterazioni = lavora(radice, stato.copy(), seme.split(), scadenza, budget(0), interruzione);
+        } finally {
+            stato.setTurno(turno);
+        }
+
+        for (var lavoro : lavori) {
+            try {
+                iterazioni += lavoro.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                log.error("Errore in un thread di Monte Carlo", e.getCause());
+            }
+        }
+
+        var risultato = scegli(radice, stato, iterazioni, (System.nanoTime() - inizio) / 1_000_000);
+        log.debug("Monte Carlo: mossa {} ({} vittoria) con {} iterazioni in {} ms, {} iterazioni/s",
+                risultato.mossa(), risultato.vittoria(), risultato.iterazioni(), risultato.millis(),
+                (long) risultato.iterazioniAlSecondo());
+        return risultato;
+    }
+
+    //playout del thread i, il resto della divisione va ai primi thread
+    private long budget(int i) {
+        return iterazioniMassime <= 0 ? Long.MAX_VALUE
+                : iterazioniMassime / thread + (i < iterazioniMassime % thread ? 1 : 0);
+    }
+
+    //sottoalbero della posizione se l'ultimo albero la contiene, altrimenti una radice nuova
+    private Nodo radice(GameState stato) {
+        var vecchio = albero;
+        albero = null;
+        int ply = vecchio == null ? -1 : stato.getNumeroMosse() - vecchio.mosse();
+        if (ply < 0 || ply > PLY_RIUSO || vecchio.checkType() != stato.getCheckType())
+            return new Nodo(-1);
+        // la posizione senza le ultime mosse deve essere la radice del vecchio albero
+        var copia = stato.copy();
+        for (int i = 0; i < ply; i++)
+            copia.undo();
+        if (copia.getHash() != vecchio.hash())
+            return new Nodo(-1);
+        int[] mosse = stato.getMosse();
+        var nodo = vecchio.radice();
+        for (int i = mosse.length - ply; i < mosse.length && nodo != null; i++)
+            nodo = nodo.figlio(mosse[i]);
+        if (nodo == null)
+            return new Nodo(-1);
+        log.debug("Monte Carlo: riusato il sottoalbero con {} visite", nodo.visite);
+        return nodo;
+    }
+
+    //ciclo di un thread: selezione, espansione, simulazione e propagazione finché c'è tempo
+    private long lavora(Nodo radice, GameState stato, SplittableRandom random, long scadenza, long budget,
+                        AtomicBoolean interruzione) {
+        var simulazione = new Simulazione(stato.getSize(), stato.getCheckType());
+        var percorso = new Nodo[stato.getCelle() - stato.getNumeroMosse() + 1];
+        long iterazioni = 0;
+        while (iterazioni < budget && System.nanoTime() < scadenza && !interruzione.get()) {
+            int lunghezza = 0;
+            var nodo = radice;
+            nodo.visita();
+            percorso[lunghezza++] = nodo;
+            Symbol esito = null;
+            while (true) {
+                if (nodo.mossa != -1) {
+                    // la partita può essere già finita con la mossa che ha portato qui
+                    var mosso = stato.getSimbolo(nodo.mossa);
+                    if (stato.haVinto(mosso, nodo.mossa)) {
+                        esito = mosso;
+                        break;
+                    }
+                    if (stato.isFull()) {
+                        esito = Symbol.EMPTY;
+                        break;
+                    }
+                }
+                if (nodo.figli == null) {
+                    if (nodo != radice && nodo.visite < SOGLIA_ESPANSIONE)
+                        break;
+                    nodo.espandi(stato);
+                }
+                nodo = nodo.seleziona(random);
+                stato.move(nodo.mossa);
+                nodo.visita();
+                percorso[lunghezza++] = nodo;
+            }
+            if (esito == null)
+                esito = simulazione.gioca(stato, random);
+
+            // propaga il risultato dal punto di vista di chi ha giocato la mossa di ogni nodo
+            for (int i = lunghezza - 1; i > 0; i--) {
+                var mosso = stato.getSimbolo(percorso[i].mossa);
+                percorso[i].aggiungi(esito == mosso ? 2 : esito == Symbol.EMPTY ? 1 : 0);
+                stato.undo();
+            }
+            iterazioni++;
+        }
+        return iterazioni;
+    }
+
+    private static RisultatoMcts scegli(Nodo radice, GameState stato, long iterazioni, long millis) {
+        Nodo migliore = null;
+        if (radice.figli != null)
+            for (var figlio : radice.figli)
+                if (figlio != null && (migliore == null || figlio.visite > migliore.visite))
+                    migliore = figlio;
+        if (migliore == null) {
+            // nessuna iterazione completata, prima casella libera
+            for (int cella = 0; cella < stato.getCelle(); cella++)
+                if (stato.isEmpty(cella))
+                    return new RisultatoMcts(cella, 0.5, iterazioni, millis);
+            return new RisultatoMcts(-1, 0, iterazioni, millis);
+        }
+        return new RisultatoMcts(migliore.mossa, migliore.punti / (2.0 * migliore.visite), iterazioni, millis);
+    }
+
+    //radice dell'ultima ricerca con la posizione da cui partiva
+    private record Albero(Nodo radice, long hash, int mosse, CheckType checkType) {
+    }
+
+    /**
+     * Node of the tree, shared by all the threads: the counters are updated atomically and the
+     * children are published with compare-and-set, so no locks are needed
+     */
+    private static final class Nodo {
+        private static final VarHandle VISITE;
+        private static final VarHandle PUNTI;
+        private static final VarHandle FIGLIO = MethodHandles.arrayElementVarHandle(Nodo[].class);
+
+        static {
+            try {
+                var lookup = MethodHandles.lookup();
+                VISITE = lookup.findVarHandle(Nodo.class, "visite", int.class);
+                PUNTI = lookup.findVarHandle(Nodo.class, "punti", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        //casella giocata per arrivare al nodo, -1 per la radice
+        private final int mossa;
+        private volatile int visite;
+        //mezzi punti di chi ha giocato la mossa: 2 per una vittoria, 1 per un pareggio
+        private volatile long punti;
+        //caselle libere del nodo, creato dopo SOGLIA_ESPANSIONE visite
+        private int[] mosse;
+        //figlio di ogni casella di mosse, null finché non viene scelto
+        private volatile Nodo[] figli;
+
+        private Nodo(int mossa) {
+            this.mossa = mossa;
+        }
+
+        private void visita() {
+            VISITE.getAndAdd(this, 1);
+        }
+
+        private void aggiungi(long mezziPunti) {
+            PUNTI.getAndAdd(this, mezziPunti);
+        }
+
+        private void espandi(GameState stato) {
+            int[] libere = new int[stato.getNumeroLibere()];
+            for (int i = 0; i < libere.length; i++)
+                libere[i] = stato.getLibera(i);
+            // mosse è scritto prima di pubblicare figli, chi legge figli non null vede anche mosse
+            synchronized (this) {
+                if (figli != null)
+                    return;
+                mosse = libere;
+                figli = new Nodo[libere.length];
+            }
+        }
+
+        //figlio già creato della casella, null se non è mai stato scelto
+        private Nodo figlio(int cella) {
+            var figli = this.figli;
+            if (figli == null)
+                return null;
+            for (int i = 0; i < figli.length; i++)
+                if (mosse[i] == cella)
+                    return figli[i];
+            return null;
+        }
+
+        //figlio con il valore UCT più alto, una casella mai provata vince su tutte
+        private Nodo seleziona(SplittableRandom random) {
+            var figli = this.figli;
+            int inizio = random.nextInt(figli.length);
+            double logVisite = Math.log(Math.max(visite, 1));
+            int scelto = -1;
+            double migliore = Double.NEGATIVE_INFINITY;
+            for (int k = 0; k < figli.length; k++) {
+                int i = (inizio + k) % figli.length;
+                var figlio = figli[i];
+                int visiteFiglio = figlio == null ? 0 : figlio.visite;
+                if (visiteFiglio == 0) {
+                    scelto = i;
+                    break;
+                }
+                double valore = figlio.punti / (2.0 * visiteFiglio) + ESPLORAZIONE * Math.sqrt(logVisite / visiteFiglio);
+                if (valore > migliore) {
+                    migliore = valore;
+                    scelto = i;
+                }
+            }
+            var figlio = figli[scelto];
+            if (figlio != null)
+                return figlio;
+            var nuovo = new Nodo(mosse[scelto]);
+            var esistente = (Nodo) FIGLIO.compareAndExchange(figli, scelto, (Nodo) null, nuovo);
+            return esistente == null ? nuovo : esistente;
+        }
+    }
+}
@@ -0,0 +1,344 @@
+package logic.search;
+
+import logic.GameState;
+import logic.Simmetrie;
+import logic.enums.Symbol;
+import logic.enums.Trasformazione;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Negamax search with alpha-beta pruning that works on any board size and any
+ * {@link logic.enums.CheckType}, since it only relies on {@link GameState#move},
+ * {@link GameState#undo} and {@link GameState#haVinto}.
+ * <br>
+ * <br>
+ * <b>Move ordering</b>, so that the cut-offs happen as early as possible:
+ * - killer moves: the moves that caused a cut-off at the same ply are tried first
+ * - history heuristic: moves that caused many cut-offs anywhere in the tree come next
+ * - centre-first: between equal moves the one closer to the centre of the board wins
+ * <br>
+ * <br>
+ * When the depth budget runs out before the end of the game the position is scored with
+ * {@link GameState#valuta}. With {@link #cercaConTempo} the depth grows until the time runs out,
+ * so small boards are searched to the end and the play is perfect.
+ * <br>
+ * <br>
+ * With a {@link TranspositionTable} the positions already searched (reached with a different
+ * order of the same moves, or in a previous search) are not searched again, and the best move
+ * saved for a position is always tried first. The table is keyed on the canonical form of the
+ * position (see {@link Simmetrie}), so a rotation or reflection of a known position is a hit too.
+ */
+public class Negamax {
+    public static final int VITTORIA = 1_000_000;
+    private static final int INFINITO = Integer.MAX_VALUE;
+    private static final int BONUS_KILLER = 1 << 29;
+    private static final int LIMITE_HISTORY = 1 << 20;
+    private static final int BONUS_TABELLA = 1 << 30;
+    //sopra questo valore il punteggio è una vittoria e dipende dal ply
+    private static final int SOGLIA_VITTORIA = VITTORIA - 1024;
+
+    //ogni quanti nodi si controlla il tempo, una potenza di due meno uno
+    private static final int CONTROLLO_TEMPO = 1023;
+
+    private final TranspositionTable tabella;
+    //per ogni ply le due mosse che hanno causato l'ultimo taglio
+    private int[][] killer;
+    //per ogni lato e cella quante volte ha causato un taglio, pesato con la profondità
+    private int[][] history;
+    //buffer di mosse e punteggi per ogni ply, così la ricerca non alloca
+    private int[][] mosse;
+    private int[][] punteggi;
+    private int[] centralita;
+    //System.nanoTime() oltre il quale la ricerca si interrompe, Long.MAX_VALUE se non c'è limite
+    private long scadenza = Long.MAX_VALUE;
+    /**
+     * When set to true by another thread the search stops as if the time had run out
+     */
+    @Setter
+    private AtomicBoolean interruzione;
+    /**
+     * Depth skipped at the start of the iterative deepening, so the threads of a
+     * {@link RicercaParallela} do not all search the same depth at the same time
+     */
+    @Setter
+    private int sfasamento = 0;
+    /**
+     * Seed of the move ordering: with a value other than 0 the moves with the same history and centrality
+     * are tried in an order of their own, so the threads of a {@link RicercaParallela} visit different subtrees
+     */
+    @Setter
+    private int seme = 0;
+
+    @Getter
+    private long nodi = 0;
+
+    public Negamax() {
+        this(null);
+    }
+
+    /**
+     * @param tabella transposition table to use, it can be shared between searches
+     */
+    public Negamax(TranspositionTable tabella) {
+        this.tabella = tabella;
+    }
+
+    /**
+     * Searches the best move for the given symbol at a fixed depth. The state is left as it was received.
+     *
+     * @param stato      current state of the game
+     * @param simbolo    symbol that has to move
+     * @param profondita depth budget in plies
+     * @return the result of the search, the move is -1 if the board is full
+     */
+    public RisultatoRicerca cerca(GameState stato, Symbol simbolo, int profondita) {
+        return cerca(stato, simbolo, profondita, 0);
+    }
+
+    /**
+     * Iterative deepening: searches at depth 1, 2, 3... until the time runs out or the whole game
+     * has been searched. When the deadline expires in the middle of a depth, the best move of the
+     * last depth completed is returned, so the answer is always ready on time. The moves found by a
+     * depth are stored in the transposition table and tried first by the next one.
+     *
+     * @param stato   current state of the game
+     * @param simbolo symbol that has to move
+     * @param millis  time budget of the move
+     * @return the result of the deepest search completed, the move is -1 if the board is full
+     */
+    public RisultatoRicerca cercaConTempo(GameState stato, Symbol simbolo, long millis) {
+        return cerca(stato, simbolo, stato.getCelle() - stato.getNumeroMosse(), millis);
+    }
+
+    private RisultatoRicerca cerca(GameState stato, Symbol simbolo, int profonditaMassima, long millis) {
+        long inizio = System.nanoTime();
+        scadenza = millis > 0 ? inizio + millis * 1_000_000 : Long.MAX_VALUE;
+        nodi = 0;
+        var turno = stato.getTurno();
+        int mosseIniziali = stato.getNumeroMosse();
+        stato.setTurno(simbolo);
+        try {
+            prepara(stato);
+            // senza limite di tempo si cerca subito alla profondità richiesta
+            int profondita = millis > 0 ? Math.min(1 + sfasamento, profonditaMassima) : profonditaMassima;
+            var risultato = new RisultatoRicerca(-1, 0, 0, 0, 0);
+            for (; profondita <= profonditaMassima; profondita++) {
+                int[] radice;
+                try {
+                    radice = radice(stato, profondita);
+                } catch (TempoScaduto e) {
+                    // la profondità interrotta non vale: si torna alla posizione di partenza
+                    while (stato.getNumeroMosse() > mosseIniziali)
+                        stato.undo();
+                    break;
+                }
+                risultato = new RisultatoRicerca(radice[0], radice[1], profondita, nodi, (System.nanoTime() - inizio) / 1_000_000);
+                // una vittoria o una sconfitta certa non cambia cercando più a fondo
+                if (radice[0] == -1 || Math.abs(radice[1]) > SOGLIA_VITTORIA)
+                    break;
+            }
+            if (risultato.mossa() == -1 && stato.getNumeroMosse() < stato.getCelle())
+                // nemmeno la profondità 1 è finita in tempo: la prima mossa dell'ordinamento
+                risultato = new RisultatoRicerca(mosse[0][0], 0, 0, nodi, (System.nanoTime() - inizio) / 1_000_000);
+            return risultato;
+        } finally {
+            stato.setTurno(turno);
+            scadenza = Long.MAX_VALUE;
+        }
+    }
+
+    private void prepara(GameState stato) {
+        int celle = stato.getCelle();
+        int size = stato.getSize();
+        if (mosse == null || mosse[0].length != celle) {
+            killer = new int[celle + 1][2];
+            history = new int[2][celle];
+            mosse = new int[celle + 1][celle];
+            punteggi = new int[celle + 1][celle];
+            centralita = new int[celle];
+        }
+        // distanza di Manhattan dal centro, raddoppiata per restare intera anche con size pari,
+        // e negli ultimi 2 bit lo spareggio del seme
+        var spareggio = new SplittableRandom(seme);
+        for (int i = 0; i < celle; i++) {
+            int row = i / size, col = i % size;
+            int distanza = Math.abs(2 * row - (size - 1)) + Math.abs(2 * col - (size - 1));
+            centralita[i] = -distanza * 4 + (seme != 0 ? spareggio.nextInt(4) : 0);
+        }
+        for (int[] k : killer) {
+            k[0] = -1;
+            k[1] = -1;
+        }
+        //la storia delle ricerche precedenti vale ancora, ma meno
+        for (int[] h : history)
+            for (int i = 0; i < h.length; i++)
+                h[i] >>= 1;
+    }
+
+    //restituisce {mossa migliore, punteggio}
+    private int[] radice(GameState stato, int profondita) {
+        int numero = generaMosse(stato, 0, mossaDaTabella(stato));
+        if (numero == 0)
+            return new int[]{-1, 0};
+        int migliore = mosse[0][0];
+        int alpha = -INFINITO;
+        for (int i = 0; i < numero; i++) {
+            int mossa = mosse[0][i];
+            int punteggio = valutaMossa(stato, mossa, profondita, 0, alpha, INFINITO);
+            if (punteggio > alpha) {
+                alpha = punteggio;
+                migliore = mossa;
+            }
+        }
+        return new int[]{migliore, alpha};
+    }
+
+    private int negamax(GameState stato, int profondita, int ply, int alpha, int beta) {
+        var trasformazione = stato.getTrasformazioneCanonica();
+        long chiave = stato.getHash(trasformazione);
+        int mossaTabella = -1;
+        if (tabella != null) {
+            long dato = tabella.probe(chiave);
+            if (dato != TranspositionTable.MISS) {
+                mossaTabella = daCanonica(TranspositionTable.mossa(dato), stato, trasformazione);
+                if (TranspositionTable.profondita(dato) >= profondita) {
+                    int valore = daTabella(TranspositionTable.punteggio(dato), ply);
+                    switch (TranspositionTable.tipo(dato)) {
+                        case TranspositionTable.EXACT -> {
+                            return valore;
+                        }
+                        case TranspositionTable.LOWER -> alpha = Math.max(alpha, valore);
+                        case TranspositionTable.UPPER -> beta = Math.min(beta, valore);
+                    }
+                    if (alpha >= beta)
+                        return valore;
+                }
+            }
+        }
+
+        int alphaIniziale = alpha;
+        int numero = generaMosse(stato, ply, mossaTabella);
+        int lato = GameState.lato(stato.getTurno());
+        int migliore = -INFINITO;
+        int mossaMigliore = -1;
+        for (int i = 0; i < numero; i++) {
+            int mossa = mosse[ply][i];
+            int punteggio = valutaMossa(stato, mossa, profondita, ply, alpha, beta);
+            if (punteggio > migliore) {
+                migliore = punteggio;
+                mossaMigliore = mossa;
+            }
+            if (migliore > alpha)
+                alpha = migliore;
+            if (alpha >= beta) {
+                //taglio: la mossa diventa killer per questo ply e guadagna storia
+                if (killer[ply][0] != mossa) {
+                    killer[ply][1] = killer[ply][0];
+                    killer[ply][0] = mossa;
+                }
+                history[lato][mossa] = Math.min(history[lato][mossa] + profondita * profondita, LIMITE_HISTORY);
+                break;
+            }
+        }
+
+        if (tabella != null) {
+            int tipo = migliore <= alphaIniziale ? TranspositionTable.UPPER
+                    : migliore >= beta ? TranspositionTable.LOWER
+                    : TranspositionTable.EXACT;
+            int mossaCanonica = mossaMigliore < 0 ? -1 : Simmetrie.aCanonica(mossaMigliore, stato.getSize(), trasformazione);
+            tabella.store(chiave, profondita, inTabella(migliore, ply), tipo, mossaCanonica);
+        }
+        return migliore;
+    }
+
+    private boolean interrotta() {
+        return interruzione != null && interruzione.get();
+    }
+
+    private int mossaDaTabella(GameState stato) {
+        if (tabella == null)
+            return -1;
+        var trasformazione = stato.getTrasformazioneCanonica();
+        long dato = tabella.probe(stato.getHash(trasformazione));
+        return dato == TranspositionTable.MISS ? -1 : daCanonica(TranspositionTable.mossa(dato), stato, trasformazione);
+    }
+
+    private static int daCanonica(int mossa, GameState stato, Trasformazione trasformazione) {
+        return mossa < 0 ? -1 : Simmetrie.daCanonica(mossa, stato.getSize(), trasformazione);
+    }
+
+    //le vittorie si salvano come distanza dalla posizione e non dalla radice
+    private static int inTabella(int punteggio, int ply) {
+        if (punteggio > SOGLIA_VITTORIA) return punteggio + ply;
+        if (punteggio < -SOGLIA_VITTORIA) return punteggio - ply;
+        return punteggio;
+    }
+
+    private static int daTabella(int punteggio, int ply) {
+        if (punteggio > SOGLIA_VITTORIA) return punteggio - ply;
+        if (punteggio < -SOGLIA_VITTORIA) return punteggio + ply;
+        return punteggio;
+    }
+
+    //gioca la mossa, ne calcola il valore per chi la gioca e la annulla
+    private int valutaMossa(GameState stato, int mossa, int profondita, int ply, int alpha, int beta) {
+        if ((++nodi & CONTROLLO_TEMPO) == 0 && (System.nanoTime() > scadenza || interrotta()))
+            throw TempoScaduto.ISTANZA;
+        Symbol simbolo = stato.getTurno();
+        stato.move(mossa);
+        int punteggio;
+        if (stato.haVinto(simbolo, mossa))
+            // vincere prima vale di più
+            punteggio = VITTORIA - ply;
+        else if (stato.isFull())
+            punteggio = 0;
+        else if (profondita <= 1)
+            punteggio = stato.valuta(simbolo);
+        else
+            punteggio = -negamax(stato, profondita - 1, ply + 1, -beta, -alpha);
+        stato.undo();
+        return punteggio;
+    }
+
+    //riempie il buffer del ply con le caselle vuote, ordinate dalla più promettente
+    private int generaMosse(GameState stato, int ply, int mossaTabella) {
+        int lato = GameState.lato(stato.getTurno());
+        int[] buffer = mosse[ply];
+        int[] chiavi = punteggi[ply];
+        int numero = 0;
+        for (int i = 0; i < stato.getNumeroLibere(); i++) {
+            int cella = stato.getLibera(i);
+            int chiave = history[lato][cella] * 128 + centralita[cella];
+            if (cella == mossaTabella)
+                chiave += BONUS_TABELLA;
+            else if (cella == killer[ply][0])
+                chiave += BONUS_KILLER;
+            else if (cella == killer[ply][1])
+                chiave += BONUS_KILLER / 2;
+
+            // insertion sort: le mosse sono al massimo qualche centinaio
+            int j = numero++;
+            while (j > 0 && chiavi[j - 1] < chiave) {
+                buffer[j] = buffer[j - 1];
+                chiavi[j] = chiavi[j - 1];
+                j--;
+            }
+            buffer[j] = cella;
+            chiavi[j] = chiave;
+        }
+        return numero;
+    }
+
+    //interrompe la ricerca quando scade il tempo, senza stack trace perché non è un errore
+    private static final class TempoScaduto extends RuntimeException {
+        private static final TempoScaduto ISTANZA = new TempoScaduto();
+
+        private TempoScaduto() {
+            super(null, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package logic.search;
+
+import logic.GameState;
+import logic.enums.Symbol;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parallel search with the Lazy SMP scheme: every thread runs its own {@link Negamax} with iterative
+ * deepening on a copy of the position, and all of them share the same {@link TranspositionTable}.
+ * The threads help each other through the table: a subtree finished by one is a hit for the others,
+ * so with more cores the search reaches a deeper depth in the same time.
+ * <br>
+ * <br>
+ * The calling thread is the first search thread; the others start one ply apart so they do not
+ * all search the same depth together, and each one orders the equal moves with its own seed
+ * ({@link Negamax#setSeme}), so they do not all visit the same subtrees in the same order.
+ * When the calling thread finishes, the others are stopped and the result of the deepest depth
+ * completed is returned once all of them have ended, also when the calling thread is interrupted,
+ * so the next search never shares a {@link Negamax} with a running one.
+ * <br>
+ * <br>
+ * The number of threads comes from the system property <code>tris.thread</code> (all the cores by default).
+ */
+@Slf4j
+public class RicercaParallela {
+    private static final ExecutorService ESECUTORE = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger contatore = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            var thread = new Thread(r, "ricerca-" + contatore.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    });
+
+    @Getter
+    private final int thread;
+    private final Negamax[] ricerche;
+
+    public RicercaParallela(TranspositionTable tabella) {
+        this(Integer.getInteger("tris.thread", Runtime.getRuntime().availableProcessors()), tabella);
+    }
+
+    /**
+     * @param thread  number of search threads, the calling one included
+     * @param tabella transposition table shared by the threads
+     */
+    public RicercaParallela(int thread, TranspositionTable tabella) {
+        if (thread < 1)
+            throw new IllegalArgumentException("Servono almeno un thread di ricerca: " + thread);
+        this.thread = thread;
+        this.ricerche = new Negamax[thread];
+        for (int i = 0; i < thread; i++) {
+            ricerche[i] = new Negamax(tabella);
+            ricerche[i].setSfasamento(i % 2);
+            ricerche[i].setSeme(i);
+        }
+    }
+
+    /**
+     * Searches the best move for the given symbol within the time budget. The state is left as it was received.
+     *
+     * @param stato   current state of the game
+     * @param simbolo symbol that has to move
+     * @param millis  time budget of the move
+     * @return the deepest result and the nodes searched by every thread
+     */
+    public RisultatoParallelo cerca(GameState stato, Symbol simbolo, long millis) {
+        return cerca(stato, simbolo, millis, new AtomicBoolean());
+    }
+
+    /**
+     * Like {@link #cerca(GameState, Symbol, long)}, but it also stops early, with the deepest result
+     * completed so far, when the flag is set by another thread
+     *
+     * @param interruzione flag that cancels the search, it is set by the search itself when it ends
+     */
+    public synchronized RisultatoParallelo cerca(GameState stato, Symbol simbolo, long millis, AtomicBoolean interruzione) {
+        long inizio = System.nanoTime();
+        List<Future<RisultatoRicerca>> aiutanti = new ArrayList<>();
+        for (int i = 1; i < thread; i++) {
+            var ricerca = ricerche[i];
+            var copia = stato.copy();
+            ricerca.setInterruzione(interruzione);
+            aiutanti.add(ESECUTORE.submit(() -> ricerca.cercaConTempo(copia, simbolo, millis)));
+        }
+
+        ricerche[0].setInterruzione(interruzione);
+        RisultatoRicerca migliore;
+        try {
+            migliore = ricerche[0].cercaConTempo(stato, simbolo, millis);
+        } finally {
+            interruzione.set(true);
+        }
+
+        // si aspettano tutti gli aiutanti anche se interrotti: la prossima ricerca riusa i loro Negamax
+        long[] nodi = new long[thread];
+        nodi[0] = migliore.nodi();
+        boolean interrotto = false;
+        for (int i = 0; i < aiutanti.size(); i++) {
+            while (true) {
+                try {
+                    var risultato = aiutanti.get(i).get();
+                    nodi[i + 1] = risultato.nodi();
+                    if (risultato.mossa() != -1 && risultato.profondita() > migliore.profondita())
+                        migliore = risultato;
+                    break;
+                } catch (InterruptedException e) {
+                    // l'interruzione è già alzata, gli aiutanti finiscono al prossimo controllo del tempo
+                    interrotto = true;
+                } catch (ExecutionException e) {
+                    log.error("Errore in un thread di ricerca", e.getCause());
+                    break;
+                }
+            }
+        }
+        if (interrotto)
+            Thread.currentThread().interrupt();
+
+        var risultato = new RisultatoParallelo(migliore, nodi, (System.nanoTime() - inizio) / 1_000_000);
+        if (log.isDebugEnabled()) {
+            log.debug("Ricerca parallela: mossa {} profondità {} in {} ms, nodi/s per thread {}",
+                    migliore.mossa(), migliore.profondita(), risultato.millis(),
+                    Arrays.toString(risultato.nodiAlSecondo()));
+        }
+        return risultato;
+    }
+}
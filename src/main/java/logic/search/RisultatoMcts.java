@@ -0,0 +1,16 @@
+package logic.search;
+
+/**
+ * Outcome of a search of {@link Mcts}
+ *
+ * @param mossa      cell chosen, the most visited child of the root
+ * @param vittoria   expected score of the move for who plays it, from 0 (loss) to 1 (win)
+ * @param iterazioni playouts done by all the threads
+ * @param millis     time spent
+ */
+public record RisultatoMcts(int mossa, double vittoria, long iterazioni, long millis) {
+
+    public double iterazioniAlSecondo() {
+        return iterazioni * 1000.0 / Math.max(millis, 1);
+    }
+}
@@ -0,0 +1,33 @@
+package logic.search;
+
+/**
+ * Outcome of a search of the {@link RicercaParallela}
+ *
+ * @param risultato     result of the thread that reached the deepest depth
+ * @param nodiPerThread positions visited by every thread, the first one is the calling thread
+ * @param millis        time spent
+ */
+public record RisultatoParallelo(RisultatoRicerca risultato, long[] nodiPerThread, long millis) {
+
+    public int mossa() {
+        return risultato.mossa();
+    }
+
+    public long nodiTotali() {
+        long totale = 0;
+        for (long nodi : nodiPerThread)
+            totale += nodi;
+        return totale;
+    }
+
+    /**
+     * @return the nodes per second searched by every thread
+     */
+    public double[] nodiAlSecondo() {
+        double[] velocita = new double[nodiPerThread.length];
+        double secondi = Math.max(millis, 1) / 1000.0;
+        for (int i = 0; i < velocita.length; i++)
+            velocita[i] = nodiPerThread[i] / secondi;
+        return velocita;
+    }
+}
@@ -0,0 +1,13 @@
+package logic.search;
+
+/**
+ * Outcome of a search of the {@link Negamax}
+ *
+ * @param mossa      best cell found, -1 if the board is full
+ * @param punteggio  score of the move for the side that plays it
+ * @param profondita last depth searched completely
+ * @param nodi       positions visited
+ * @param millis     time spent
+ */
+public record RisultatoRicerca(int mossa, int punteggio, int profondita, long nodi, long millis) {
+}
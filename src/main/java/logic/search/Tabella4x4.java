@@ -0,0 +1,279 @@
+package logic.search;
+
+import logic.GameState;
+import logic.WinMasks;
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+import static logic.search.TabellaPerfetta.PAREGGIO;
+import static logic.search.TabellaPerfetta.SCONFITTA;
+import static logic.search.TabellaPerfetta.VITTORIA;
+
+/**
+ * Perfect-play table of the 4x4 board for every {@link CheckType}, solved offline by retrograde analysis
+ * and memory-mapped when it is opened, so a lookup costs no search and no heap.
+ * <br>
+ * <br>
+ * <b>Index</b>: the 16 cells read as a base 3 number like in {@link TabellaPerfetta} (0 empty, 1 who moved
+ * first, 2 who moved second), but without the canonical form: a direct index has a slot for every one of
+ * the 3^16 boards anyway, and so the index after a move is the index before plus the digit of the cell.
+ * <br>
+ * <br>
+ * <b>Entry</b>: 2 bits, four per byte, with the outcome for the side to move ({@link TabellaPerfetta#VITTORIA},
+ * {@link TabellaPerfetta#PAREGGIO}, {@link TabellaPerfetta#SCONFITTA}), 0 when the position is not legal or
+ * the game is over. The best move is not stored: it is a cell that leaves the opponent the opposite outcome,
+ * found with at most 16 lookups.
+ * <br>
+ * <br>
+ * <b>Retrograde analysis</b>: a move always adds a digit, so every position has a lower index than the
+ * positions after it. Walking the indexes from the last one to 0, every position is solved from its
+ * successors, which are already in the table, without recursion and without memory other than the table.
+ * <br>
+ * <br>
+ * The file, about 10 MB per {@link CheckType}, is written by the Gradle task <code>generaTabella4x4</code>
+ * (see {@link #main}) and read from the path in <code>tris.tabella4x4</code> ({@value #FILE} by default).
+ * Without it EXTREME searches on 4x4 like on the other boards.
+ */
+@Slf4j
+public class Tabella4x4 {
+    public static final String FILE = "tabelle/tris4x4.bin";
+    private static final int MAGIC = 0x54523434; // "TR44"
+    private static final int SIZE = 4;
+    private static final int CELLE = SIZE * SIZE;
+    private static final int POSIZIONI = 43_046_721; // 3^16
+    private static final int META = 6561; // 3^8, le posizioni di metà tabella
+    private static final int BYTE_PER_TIPO = (POSIZIONI + 3) / 4;
+    private static final int INTESTAZIONE = 5;
+    private static final int[] POTENZE = new int[CELLE];
+
+    static {
+        POTENZE[0] = 1;
+        for (int cella = 1; cella < CELLE; cella++)
+            POTENZE[cella] = POTENZE[cella - 1] * 3;
+    }
+
+    //file mappato in memoria, null se non c'è
+    private final ByteBuffer voci;
+    //[checkType] -> primo byte delle sue voci, -1 se la tabella non lo ha
+    private final int[] inizio = new int[CheckType.values().length];
+
+    private Tabella4x4(ByteBuffer voci) {
+        this.voci = voci;
+        for (int tipo = 0; tipo < inizio.length; tipo++)
+            inizio[tipo] = INTESTAZIONE + tipo * BYTE_PER_TIPO;
+    }
+
+    //una tabella con le sole voci di un checkType, come le restituisce risolvi
+    private Tabella4x4(CheckType checkType, byte[] voci) {
+        this.voci = ByteBuffer.wrap(voci);
+        Arrays.fill(inizio, -1);
+        inizio[checkType.ordinal()] = 0;
+    }
+
+    /**
+     * @return the table of one {@link CheckType} solved in memory, without the file
+     */
+    static Tabella4x4 inMemoria(CheckType checkType) {
+        return new Tabella4x4(checkType, risolvi(checkType));
+    }
+
+    public static Tabella4x4 getIstanza() {
+        return Istanza.TABELLA;
+    }
+
+    private static final class Istanza {
+        private static final Tabella4x4 TABELLA = carica(Path.of(System.getProperty("tris.tabella4x4", FILE)));
+    }
+
+    /**
+     * Maps the table written by {@link #main}; a missing or invalid file gives an empty table
+     */
+    public static Tabella4x4 carica(Path percorso) {
+        if (!Files.isRegularFile(percorso)) {
+            log.info("Tabella 4x4 {} non trovata, sul 4x4 EXTREME cerca", percorso.toAbsolutePath());
+            return new Tabella4x4(null);
+        }
+        try (var canale = FileChannel.open(percorso, StandardOpenOption.READ)) {
+            int tipi = CheckType.values().length;
+            if (canale.size() != INTESTAZIONE + (long) tipi * BYTE_PER_TIPO)
+                throw new IOException("Dimensione della tabella non valida: " + canale.size());
+            // la mappa resta valida anche dopo la chiusura del canale
+            var mappa = canale.map(FileChannel.MapMode.READ_ONLY, 0, canale.size());
+            if (mappa.getInt(0) != MAGIC || mappa.get(4) != tipi)
+                throw new IOException("Formato della tabella non valido");
+            return new Tabella4x4(mappa);
+        } catch (IOException e) {
+            log.error("Tabella 4x4 {} non leggibile, sul 4x4 EXTREME cerca", percorso.toAbsolutePath(), e);
+            return new Tabella4x4(null);
+        }
+    }
+
+    /**
+     * @return true if the file has been mapped
+     */
+    public boolean isDisponibile() {
+        return voci != null;
+    }
+
+    /**
+     * @param stato   4x4 game state
+     * @param simbolo symbol of the side to move
+     * @return the best move, or -1 if the position is not in the table
+     */
+    public int mossa(GameState stato, Symbol simbolo) {
+        int indice = indice(stato, simbolo);
+        if (indice < 0)
+            return -1;
+        var checkType = stato.getCheckType();
+        int esito = voce(checkType, indice);
+        if (esito == 0)
+            return -1;
+        // vincere subito, la tabella sa solo che si vince prima o poi
+        int vincente = stato.mossaVincente(simbolo);
+        if (vincente != -1)
+            return vincente;
+        if (esito == SCONFITTA) {
+            // tutte le mosse perdono, almeno si para la prossima
+            int parata = stato.mossaVincente(GameState.opposto(simbolo));
+            return parata != -1 ? parata : stato.getLibera(0);
+        }
+
+        int cercato = esito == VITTORIA ? SCONFITTA : PAREGGIO;
+        int cifra = stato.getNumeroMosse() % 2 == 0 ? 1 : 2;
+        for (int cella = 0; cella < CELLE; cella++) {
+            if (!stato.isEmpty(cella))
+                continue;
+            int esitoFiglio = voce(checkType, indice + cifra * POTENZE[cella]);
+            // senza vincitore una voce vuota è la tabella piena, cioè un pareggio
+            if ((esitoFiglio == 0 ? PAREGGIO : esitoFiglio) == cercato)
+                return cella;
+        }
+        return -1;
+    }
+
+    /**
+     * @return {@link TabellaPerfetta#VITTORIA}, {@link TabellaPerfetta#PAREGGIO} or {@link TabellaPerfetta#SCONFITTA}
+     *         for the side to move, 0 if not in the table
+     */
+    public int esito(GameState stato, Symbol simbolo) {
+        int indice = indice(stato, simbolo);
+        return indice < 0 ? 0 : voce(stato.getCheckType(), indice);
+    }
+
+    private int indice(GameState stato, Symbol simbolo) {
+        if (voci == null || stato.getSize() != SIZE || inizio[stato.getCheckType().ordinal()] < 0)
+            return -1;
+        // a parità di simboli muove chi ha iniziato
+        Symbol primo = stato.getNumeroMosse() % 2 == 0 ? simbolo : GameState.opposto(simbolo);
+        int indice = 0;
+        for (int cella = 0; cella < CELLE; cella++) {
+            var simboloCella = stato.getSimbolo(cella);
+            if (simboloCella != Symbol.EMPTY)
+                indice += (simboloCella == primo ? 1 : 2) * POTENZE[cella];
+        }
+        return indice;
+    }
+
+    private int voce(CheckType checkType, int indice) {
+        int dato = voci.get(inizio[checkType.ordinal()] + (indice >>> 2));
+        return dato >>> ((indice & 3) << 1) & 0x3;
+    }
+
+    /**
+     * Solves every position of the 4x4 board for one {@link CheckType}
+     *
+     * @return the packed entries, four per byte, see the documentation of the class
+     */
+    public static byte[] risolvi(CheckType checkType) {
+        // per ogni insieme di celle di un simbolo, se contiene una linea
+        var linee = WinMasks.of(SIZE, checkType);
+        boolean[] vincente = new boolean[1 << CELLE];
+        long[] bits = new long[1];
+        for (int maschera = 0; maschera < vincente.length; maschera++) {
+            bits[0] = maschera;
+            vincente[maschera] = linee.hasLine(bits);
+        }
+        // celle del primo e del secondo per ognuna delle 3^8 metà dell'indice
+        int[] primoMeta = new int[META];
+        int[] secondoMeta = new int[META];
+        for (int i = 0; i < META; i++) {
+            for (int cella = 0, resto = i; cella < CELLE / 2; cella++, resto /= 3) {
+                if (resto % 3 == 1)
+                    primoMeta[i] |= 1 << cella;
+                else if (resto % 3 == 2)
+                    secondoMeta[i] |= 1 << cella;
+            }
+        }
+
+        byte[] voci = new byte[BYTE_PER_TIPO];
+        for (int alta = META - 1; alta >= 0; alta--) {
+            for (int bassa = META - 1; bassa >= 0; bassa--) {
+                int indice = alta * META + bassa;
+                int esito = risolvi(primoMeta[bassa] | primoMeta[alta] << 8,
+                        secondoMeta[bassa] | secondoMeta[alta] << 8, indice, voci, vincente);
+                voci[indice >>> 2] |= (byte) (esito << ((indice & 3) << 1));
+            }
+        }
+        return voci;
+    }
+
+    //esito per chi muove, letto dalle posizioni dopo ogni sua mossa che sono già nella tabella
+    private static int risolvi(int primo, int secondo, int indice, byte[] voci, boolean[] vincente) {
+        int mossePrimo = Integer.bitCount(primo);
+        int mosseSecondo = Integer.bitCount(secondo);
+        boolean muovePrimo = mossePrimo == mosseSecondo;
+        if (!muovePrimo && mossePrimo != mosseSecondo + 1)
+            return 0;
+        int libere = ~(primo | secondo) & (1 << CELLE) - 1;
+        if (vincente[primo] || vincente[secondo] || libere == 0)
+            return 0;
+
+        int mie = muovePrimo ? primo : secondo;
+        int cifra = muovePrimo ? 1 : 2;
+        int esito = SCONFITTA;
+        for (int resto = libere; resto != 0; resto &= resto - 1) {
+            int cella = Integer.numberOfTrailingZeros(resto);
+            if (vincente[mie | 1 << cella])
+                return VITTORIA;
+            int figlio = indice + cifra * POTENZE[cella];
+            int esitoFiglio = voci[figlio >>> 2] >>> ((figlio & 3) << 1) & 0x3;
+            if (esitoFiglio == SCONFITTA)
+                return VITTORIA;
+            // 0 è la tabella piena senza vincitore
+            if (esitoFiglio != VITTORIA)
+                esito = PAREGGIO;
+        }
+        return esito;
+    }
+
+    /**
+     * Build step: solves the table of every {@link CheckType} and writes it to the file given as first argument
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1)
+            throw new IllegalArgumentException("Uso: Tabella4x4 <file di destinazione>");
+        Path destinazione = Path.of(args[0]);
+        Files.createDirectories(destinazione.toAbsolutePath().getParent());
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(destinazione)))) {
+            out.writeInt(MAGIC);
+            out.writeByte(CheckType.values().length);
+            for (var checkType : CheckType.values()) {
+                long inizio = System.nanoTime();
+                out.write(risolvi(checkType));
+                log.info("Tabella 4x4 {} risolta in {} ms", checkType, (System.nanoTime() - inizio) / 1_000_000);
+            }
+        }
+        log.info("Tabella 4x4 scritta in {}", destinazione);
+    }
+}
@@ -0,0 +1,224 @@
+package logic.search;
+
+import logic.GameState;
+import logic.Simmetrie;
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+import logic.enums.Trasformazione;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Perfect-play table of the 3x3 board for every {@link CheckType}: for every reachable position
+ * it stores the outcome for the side to move and its best move, so EXTREME on 3x3 is a lookup.
+ * <br>
+ * <br>
+ * <b>Index</b>: the cells are read as a base 3 number, where 0 is an empty cell, 1 a symbol of who moved
+ * first and 2 a symbol of who moved second, and the index of the position is the smallest among its
+ * symmetries allowed by the {@link CheckType} (see {@link Simmetrie}). The canonical form is chosen on
+ * these digits and not on the X/O hash of the {@link GameState}, so a game opened by O has the same index
+ * as the same game opened by X. The side to move comes from the count of the symbols, so the same table
+ * serves the AI both when it plays first and when it plays second.
+ * <br>
+ * <br>
+ * <b>Entry</b>: one byte, the best move in the low 4 bits and the outcome in the next 2 bits
+ * ({@link #VITTORIA}, {@link #PAREGGIO}, {@link #SCONFITTA}). The entry is 0 when the position
+ * is not reachable or the game is already over.
+ * <br>
+ * <br>
+ * The file is written by the Gradle task <code>generaTabelle</code> (see {@link #main}) and read from
+ * the classpath; if it is missing the table is solved in memory, which takes a few milliseconds.
+ */
+@Slf4j
+public class TabellaPerfetta {
+    public static final int VITTORIA = 1;
+    public static final int PAREGGIO = 2;
+    public static final int SCONFITTA = 3;
+
+    public static final String RISORSA = "/tabelle/tris3x3.bin";
+    private static final int MAGIC = 0x54523333; // "TR33"
+    private static final int SIZE = 3;
+    private static final int CELLE = SIZE * SIZE;
+    private static final int POSIZIONI = 19683; // 3^9
+
+    //[checkType][indice]
+    private final byte[][] voci;
+
+    private TabellaPerfetta(byte[][] voci) {
+        this.voci = voci;
+    }
+
+    public static TabellaPerfetta getIstanza() {
+        return Istanza.TABELLA;
+    }
+
+    private static final class Istanza {
+        private static final TabellaPerfetta TABELLA = carica();
+    }
+
+    private static TabellaPerfetta carica() {
+        try (InputStream in = TabellaPerfetta.class.getResourceAsStream(RISORSA)) {
+            if (in != null)
+                return leggi(new DataInputStream(new BufferedInputStream(in)));
+            log.warn("Tabella {} non trovata, la risolvo in memoria", RISORSA);
+        } catch (IOException e) {
+            log.error("Tabella {} non leggibile, la risolvo in memoria", RISORSA, e);
+        }
+        return risolvi();
+    }
+
+    /**
+     * Solves every reachable position for every {@link CheckType}
+     */
+    public static TabellaPerfetta risolvi() {
+        var tipi = CheckType.values();
+        byte[][] voci = new byte[tipi.length][POSIZIONI];
+        int[] punteggi = new int[POSIZIONI];
+        for (var checkType : tipi)
+            risolvi(new GameState(SIZE, checkType), voci[checkType.ordinal()], punteggi);
+        return new TabellaPerfetta(voci);
+    }
+
+    //negamax completo con memoria, restituisce il punteggio per chi muove (più alto se vince prima)
+    private static int risolvi(GameState stato, byte[] voci, int[] punteggi) {
+        var canonica = canonica(stato);
+        int indice = canonica.indice();
+        if (voci[indice] != 0)
+            return punteggi[indice];
+
+        int migliore = Integer.MIN_VALUE;
+        int mossaMigliore = -1;
+        Symbol simbolo = stato.getTurno();
+        for (int cella = 0; cella < CELLE; cella++) {
+            if (!stato.isEmpty(cella))
+                continue;
+            stato.move(cella);
+            int punteggio;
+            if (stato.haVinto(simbolo, cella))
+                punteggio = CELLE + 1 - stato.getNumeroMosse();
+            else if (stato.isFull())
+                punteggio = 0;
+            else
+                punteggio = -risolvi(stato, voci, punteggi);
+            stato.undo();
+            if (punteggio > migliore) {
+                migliore = punteggio;
+                mossaMigliore = cella;
+            }
+        }
+
+        int esito = migliore > 0 ? VITTORIA : migliore < 0 ? SCONFITTA : PAREGGIO;
+        int mossaCanonica = Simmetrie.aCanonica(mossaMigliore, SIZE, canonica.trasformazione());
+        voci[indice] = (byte) (esito << 4 | mossaCanonica);
+        punteggi[indice] = migliore;
+        return migliore;
+    }
+
+    /**
+     * @param indice         index of the canonical form, see the documentation of the class
+     * @param trasformazione symmetry that maps the position to its canonical form
+     */
+    record Canonica(int indice, Trasformazione trasformazione) {
+    }
+
+    /**
+     * Canonical form of the position with the side to move of the state: the symmetry with the smallest index
+     */
+    static Canonica canonica(GameState stato) {
+        // a parità di simboli muove chi ha iniziato
+        Symbol primo = stato.getNumeroMosse() % 2 == 0 ? stato.getTurno() : GameState.opposto(stato.getTurno());
+        var migliore = Trasformazione.IDENTITA;
+        int minimo = Integer.MAX_VALUE;
+        for (var trasformazione : Trasformazione.ammesse(stato.getCheckType())) {
+            int indice = 0;
+            for (int cella = 0; cella < CELLE; cella++) {
+                var simbolo = stato.getSimbolo(cella);
+                if (simbolo != Symbol.EMPTY)
+                    indice += (simbolo == primo ? 1 : 2) * POTENZE[Simmetrie.aCanonica(cella, SIZE, trasformazione)];
+            }
+            if (indice < minimo) {
+                minimo = indice;
+                migliore = trasformazione;
+            }
+        }
+        return new Canonica(minimo, migliore);
+    }
+
+    private static final int[] POTENZE = {1, 3, 9, 27, 81, 243, 729, 2187, 6561};
+
+    /**
+     * @param stato   3x3 game state
+     * @param simbolo symbol of the side to move
+     * @return the best move, or -1 if the position is not in the table
+     */
+    public int mossa(GameState stato, Symbol simbolo) {
+        if (stato.getSize() != SIZE)
+            return -1;
+        var canonica = canonica(stato, simbolo);
+        int voce = voci[stato.getCheckType().ordinal()][canonica.indice()] & 0xFF;
+        if (voce == 0)
+            return -1;
+        return Simmetrie.daCanonica(voce & 0xF, SIZE, canonica.trasformazione());
+    }
+
+    /**
+     * @return {@link #VITTORIA}, {@link #PAREGGIO} or {@link #SCONFITTA} for the side to move, 0 if not in the table
+     */
+    public int esito(GameState stato, Symbol simbolo) {
+        return (voce(stato, simbolo) >> 4) & 0x3;
+    }
+
+    private int voce(GameState stato, Symbol simbolo) {
+        if (stato.getSize() != SIZE)
+            return 0;
+        return voci[stato.getCheckType().ordinal()][canonica(stato, simbolo).indice()] & 0xFF;
+    }
+
+    private static Canonica canonica(GameState stato, Symbol simbolo) {
+        var turno = stato.getTurno();
+        stato.setTurno(simbolo);
+        try {
+            return canonica(stato);
+        } finally {
+            stato.setTurno(turno);
+        }
+    }
+
+    private static TabellaPerfetta leggi(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("Formato della tabella non valido");
+        int tipi = in.readUnsignedByte();
+        if (tipi != CheckType.values().length)
+            throw new IOException("La tabella ha " + tipi + " modalità invece di " + CheckType.values().length);
+        byte[][] voci = new byte[tipi][POSIZIONI];
+        for (byte[] v : voci)
+            in.readFully(v);
+        return new TabellaPerfetta(voci);
+    }
+
+    public void scrivi(OutputStream out) throws IOException {
+        var data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeByte(voci.length);
+        for (byte[] v : voci)
+            data.write(v);
+        data.flush();
+    }
+
+    /**
+     * Build step: solves the table and writes it to the file given as first argument
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 1)
+            throw new IllegalArgumentException("Uso: TabellaPerfetta <file di destinazione>");
+        Path destinazione = Path.of(args[0]);
+        Files.createDirectories(destinazione.toAbsolutePath().getParent());
+        try (var out = Files.newOutputStream(destinazione)) {
+            risolvi().scrivi(out);
+        }
+        log.info("Tabella 3x3 scritta in {}", destinazione);
+    }
+}
@@ -0,0 +1,175 @@
+package logic.search;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size transposition table kept off-heap, so millions of entries do not create any
+ * object for the garbage collector. The memory is a direct {@link ByteBuffer} accessed as
+ * <code>long</code> words through a {@link VarHandle}.
+ * <br>
+ * <br>
+ * <b>Layout</b>: the table is made of buckets of two entries, each entry is two words:
+ * <code>key ^ data</code> and <code>data</code>. The first entry of a bucket is depth-preferred
+ * (it is replaced only by a search at least as deep, even of the same position), the second is
+ * always replaced.
+ * <br>
+ * <br>
+ * <b>Lock-free</b>: several search threads can read and write at the same time without locks.
+ * A reader that meets an entry half written by another thread sees that <code>key ^ data</code>
+ * does not match the data and treats it as a miss, so it never uses a wrong result.
+ * <br>
+ * <br>
+ * <b>Data</b> is packed in one <code>long</code>: score (32 bits), best move + 1 (9 bits),
+ * depth (8 bits), bound type (2 bits) and a bit always set, so an empty slot is 0.
+ */
+public class TranspositionTable {
+    public static final int EXACT = 0;
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+    /**
+     * Returned by {@link #probe} when the position is not in the table
+     */
+    public static final long MISS = 0L;
+
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int BYTE_ENTRY = 16;
+    private static final int BYTE_BUCKET = 2 * BYTE_ENTRY;
+    private static final long VALIDO = 1L << 51;
+
+    private final ByteBuffer memoria;
+    private final long buckets;
+    private final LongAdder letture = new LongAdder();
+    private final LongAdder trovate = new LongAdder();
+    private final LongAdder occupate = new LongAdder();
+
+    /**
+     * @param megabyte memory to reserve (at most 1024), rounded down to a power of two number of buckets
+     */
+    public TranspositionTable(int megabyte) {
+        // al massimo 1 GB, così gli offset restano int
+        long richiesti = Math.max(1L, ((long) megabyte << 20) / BYTE_BUCKET);
+        this.buckets = Long.highestOneBit(Math.min(richiesti, 1L << 25));
+        this.memoria = ByteBuffer.allocateDirect((int) (buckets * BYTE_BUCKET)).order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * Table shared by every search of the application, its size in megabytes comes from the
+     * system property <code>tris.tt.mb</code> (16 by default)
+     */
+    public static TranspositionTable getCondivisa() {
+        return Condivisa.TABELLA;
+    }
+
+    private static final class Condivisa {
+        private static final TranspositionTable TABELLA =
+                new TranspositionTable(Integer.getInteger("tris.tt.mb", 16));
+    }
+
+    /**
+     * @param chiave Zobrist hash of the position
+     * @return the packed data of the position, or {@link #MISS}
+     */
+    public long probe(long chiave) {
+        letture.increment();
+        int bucket = indice(chiave);
+        for (int slot = 0; slot < 2; slot++) {
+            int offset = bucket + slot * BYTE_ENTRY;
+            long dato = (long) LONGS.getVolatile(memoria, offset + 8);
+            long controllo = (long) LONGS.getVolatile(memoria, offset);
+            if (dato != 0 && (controllo ^ dato) == chiave) {
+                trovate.increment();
+                return dato;
+            }
+        }
+        return MISS;
+    }
+
+    /**
+     * Saves the result of a search
+     *
+     * @param chiave     Zobrist hash of the position
+     * @param profondita depth of the search below the position
+     * @param punteggio  score of the position
+     * @param tipo       {@link #EXACT}, {@link #LOWER} or {@link #UPPER}
+     * @param mossa      best move found, -1 if none
+     */
+    public void store(long chiave, int profondita, int punteggio, int tipo, int mossa) {
+        long dato = (punteggio & 0xFFFF_FFFFL)
+                | ((long) ((mossa + 1) & 0x1FF) << 32)
+                | ((long) (Math.min(profondita, 255) & 0xFF) << 41)
+                | ((long) (tipo & 0x3) << 49)
+                | VALIDO;
+        int bucket = indice(chiave);
+
+        // primo slot: si sostituisce solo con una ricerca almeno altrettanto profonda, anche della stessa
+        // posizione, così le profondità basse dell'iterative deepening non cancellano il ponder
+        long vecchio = (long) LONGS.getVolatile(memoria, bucket + 8);
+        int offset;
+        if (vecchio == 0 || profondita >= profondita(vecchio))
+            offset = bucket;
+        else
+            offset = bucket + BYTE_ENTRY;
+
+        if ((long) LONGS.getVolatile(memoria, offset + 8) == 0)
+            occupate.increment();
+        LONGS.setVolatile(memoria, offset + 8, dato);
+        LONGS.setVolatile(memoria, offset, chiave ^ dato);
+    }
+
+    private int indice(long chiave) {
+        return (int) ((chiave & (buckets - 1)) * BYTE_BUCKET);
+    }
+
+    public static int punteggio(long dato) {
+        return (int) dato;
+    }
+
+    /**
+     * @return the best move saved, or -1 if none
+     */
+    public static int mossa(long dato) {
+        return (int) ((dato >>> 32) & 0x1FF) - 1;
+    }
+
+    public static int profondita(long dato) {
+        return (int) ((dato >>> 41) & 0xFF);
+    }
+
+    public static int tipo(long dato) {
+        return (int) ((dato >>> 49) & 0x3);
+    }
+
+    public long getCapacita() {
+        return buckets * 2;
+    }
+
+    /**
+     * @return fraction of the probes that found the position
+     */
+    public double getHitRate() {
+        long totale = letture.sum();
+        return totale == 0 ? 0 : (double) trovate.sum() / totale;
+    }
+
+    /**
+     * @return fraction of the entries that are in use
+     */
+    public double getOccupazione() {
+        return (double) occupate.sum() / getCapacita();
+    }
+
+    /**
+     * Empties the table and its statistics. It must not be called while a search is running.
+     */
+    public void clear() {
+        for (int offset = 0; offset < memoria.capacity(); offset += 8)
+            LONGS.setVolatile(memoria, offset, 0L);
+        letture.reset();
+        trovate.reset();
+        occupate.reset();
+    }
+}
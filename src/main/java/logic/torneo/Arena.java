@@ -0,0 +1,170 @@
+package logic.torneo;
+
+import logic.Ai;
+import logic.GameFunctions;
+import logic.GameState;
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.enums.ReturnTurno;
+import logic.enums.Symbol;
+import logic.search.Mcts;
+import logic.search.RicercaParallela;
+import logic.search.TranspositionTable;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Headless tournament between the {@link Ai} difficulties: every pair plays the same number of
+ * games on every check type and board size of the {@link Configurazione}, starting in turn.
+ * <br>
+ * <br>
+ * The games are split in blocks taken by the threads from a shared counter. Every thread has its
+ * own {@link GameState}s, its own AIs and its own {@link Risultati}, so the games share nothing but
+ * the read-only 3x3 perfect-play table. Every block plays with a random generator seeded from the seed
+ * of the configuration and the index of the block, so the random moves of a game do not depend on
+ * which thread takes its block. The searching difficulties run single threaded, with a private
+ * transposition table, since the parallelism is already given by the games.
+ */
+@Slf4j
+public class Arena {
+    private static final int BLOCCO = 64;
+
+    private final Configurazione configurazione;
+    //(modalità, size, a, b) di ogni gruppo di partite, a <= b
+    private final List<Incontro> incontri = new ArrayList<>();
+    private final long blocchiPerIncontro;
+
+    private record Incontro(CheckType checkType, int size, Difficulty a, Difficulty b) {
+    }
+
+    public Arena(Configurazione configurazione) {
+        this.configurazione = configurazione;
+        var difficolta = configurazione.difficolta();
+        for (var checkType : configurazione.modalita())
+            for (int size = configurazione.sizeMinima(); size <= configurazione.sizeMassima(); size++)
+                for (int i = 0; i < difficolta.size(); i++)
+                    for (int j = i; j < difficolta.size(); j++)
+                        incontri.add(new Incontro(checkType, size, difficolta.get(i), difficolta.get(j)));
+        this.blocchiPerIncontro = (configurazione.partite() + BLOCCO - 1) / BLOCCO;
+    }
+
+    /**
+     * Plays the whole tournament on {@link Configurazione#thread()} threads and waits for it
+     */
+    public Risultati gioca() throws InterruptedException {
+        long inizio = System.nanoTime();
+        long blocchi = blocchiPerIncontro * incontri.size();
+        var prossimo = new AtomicLong();
+        var fatti = new AtomicLong();
+
+        List<Callable<Risultati>> tavoli = new ArrayList<>();
+        for (int i = 0; i < configurazione.thread(); i++)
+            tavoli.add(() -> new Tavolo().gioca(prossimo, fatti, blocchi));
+
+        var esecutore = Executors.newFixedThreadPool(configurazione.thread(), Thread.ofPlatform().name("torneo-", 0).factory());
+        var risultati = new Risultati();
+        try {
+            for (var futuro : esecutore.invokeAll(tavoli))
+                risultati.unisci(futuro.get());
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Errore in un thread del torneo", e.getCause());
+        } finally {
+            esecutore.shutdownNow();
+        }
+        risultati.setNanos(System.nanoTime() - inizio);
+        return risultati;
+    }
+
+    //seme del blocco: lo stesso blocco ha sempre lo stesso generatore, qualunque thread lo giochi
+    private static long semeBlocco(long seme, long blocco) {
+        // finalizzatore di murmur3, semi vicini danno sequenze scorrelate
+        long z = seme + (blocco + 1) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    //un thread del torneo, con tutto ciò che serve per giocare senza condividere nulla
+    private final class Tavolo {
+        //generatore del blocco in corso
+        private SplittableRandom random;
+        private final Risultati risultati = new Risultati();
+        //[lato] -> Ai per difficoltà, due lati perché una difficoltà può giocare contro se stessa
+        private final List<Map<Difficulty, Ai>> ai = List.of(new EnumMap<>(Difficulty.class), new EnumMap<>(Difficulty.class));
+        private final Map<CheckType, GameState[]> stati = new EnumMap<>(CheckType.class);
+        private TranspositionTable tabella;
+
+        Risultati gioca(AtomicLong prossimo, AtomicLong fatti, long blocchi) {
+            long blocco;
+            while ((blocco = prossimo.getAndIncrement()) < blocchi) {
+                random = new SplittableRandom(semeBlocco(configurazione.seme(), blocco));
+                var incontro = incontri.get((int) (blocco / blocchiPerIncontro));
+                long primaPartita = blocco % blocchiPerIncontro * BLOCCO;
+                long ultimaPartita = Math.min(primaPartita + BLOCCO, configurazione.partite());
+                for (long partita = primaPartita; partita < ultimaPartita; partita++)
+                    giocaPartita(incontro, partita % 2 == 0);
+
+                long completati = fatti.incrementAndGet();
+                if (completati * 10 / blocchi != (completati - 1) * 10 / blocchi)
+                    log.info("Torneo al {}%", completati * 100 / blocchi);
+            }
+            return risultati;
+        }
+
+        //una partita dall'inizio alla fine, la Ai che inizia ha sempre X
+        private void giocaPartita(Incontro incontro, boolean iniziaA) {
+            var stato = stato(incontro.checkType(), incontro.size());
+            stato.reset();
+            var aiA = ai(0, incontro.a(), iniziaA ? Symbol.X : Symbol.O);
+            var aiB = ai(1, incontro.b(), iniziaA ? Symbol.O : Symbol.X);
+            var diTurno = iniziaA ? aiA : aiB;
+
+            ReturnTurno esito;
+            do {
+                stato.move(diTurno.azione(stato), diTurno.getSimbolo());
+                esito = GameFunctions.isOver(aiA.getSimbolo(), stato);
+                diTurno = diTurno == aiA ? aiB : aiA;
+            } while (esito == ReturnTurno.NOT_FINISHED);
+            risultati.registra(incontro.checkType(), incontro.size(), incontro.a(), incontro.b(), esito, stato.getNumeroMosse());
+        }
+
+        private GameState stato(CheckType checkType, int size) {
+            var perSize = stati.computeIfAbsent(checkType, c -> new GameState[configurazione.sizeMassima() + 1]);
+            if (perSize[size] == null)
+                perSize[size] = new GameState(size, checkType);
+            return perSize[size];
+        }
+
+        private Ai ai(int lato, Difficulty difficulty, Symbol simbolo) {
+            var ai = this.ai.get(lato).computeIfAbsent(difficulty, d -> {
+                var nuova = new Ai(d, simbolo, 0);
+                nuova.setTempoMossa(configurazione.tempoMossa());
+                // ogni thread conta le sue partite nei Risultati, senza passare dalle Metriche condivise
+                nuova.setMetriche(false);
+                if (d == Difficulty.EXTREME)
+                    nuova.setRicerca(new RicercaParallela(1, tabella()));
+                if (d == Difficulty.MONTE_CARLO)
+                    nuova.setMcts(new Mcts(1, 0));
+                return nuova;
+            });
+            ai.setSimbolo(simbolo);
+            ai.setRandom(random);
+            if (ai.getMcts() != null)
+                ai.getMcts().setRandom(random);
+            return ai;
+        }
+
+        private TranspositionTable tabella() {
+            if (tabella == null)
+                tabella = new TranspositionTable(configurazione.megabyteTt());
+            return tabella;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package logic.torneo;
+
+import logic.BitBoard;
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+
+import java.util.List;
+
+/**
+ * Settings of a tournament played by {@link Arena}
+ *
+ * @param difficolta   difficulties that play, every one meets every other and itself
+ * @param modalita     check types played
+ * @param sizeMinima   smallest board side
+ * @param sizeMassima  biggest board side
+ * @param partite      games of every pair of difficulties on every check type and board size
+ * @param thread       threads that play, every one with its own games and AIs
+ * @param seme         seed of the random generators, the same seed plays the same random moves with any
+ *                     number of threads; EXTREME and MONTE_CARLO search within a time budget, so their
+ *                     games are the same only as far as the searches reach the same depth and playouts
+ * @param tempoMossa   time budget of a move in milliseconds for EXTREME and MONTE_CARLO,
+ *                     0 for the one of the difficulty
+ * @param megabyteTt   size of the transposition table of every thread, used by EXTREME
+ */
+public record Configurazione(List<Difficulty> difficolta, List<CheckType> modalita, int sizeMinima,
+                             int sizeMassima, long partite, int thread, long seme, long tempoMossa,
+                             int megabyteTt) {
+
+    public Configurazione {
+        difficolta = List.copyOf(difficolta);
+        modalita = List.copyOf(modalita);
+        if (difficolta.isEmpty() || modalita.isEmpty())
+            throw new IllegalArgumentException("Servono almeno una difficoltà e una modalità");
+        if (sizeMinima < BitBoard.MIN_SIZE || sizeMassima > BitBoard.MAX_SIZE || sizeMinima > sizeMassima)
+            throw new IllegalArgumentException("Dimensioni non valide: " + sizeMinima + "-" + sizeMassima);
+        if (partite < 1 || thread < 1)
+            throw new IllegalArgumentException("Servono almeno una partita e un thread");
+    }
+
+    /**
+     * @return number of games of the whole tournament
+     */
+    public long partiteTotali() {
+        long coppie = (long) difficolta.size() * (difficolta.size() + 1) / 2;
+        return coppie * modalita.size() * (sizeMassima - sizeMinima + 1) * partite;
+    }
+}
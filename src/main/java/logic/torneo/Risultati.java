@@ -0,0 +1,109 @@
+package logic.torneo;
+
+import logic.BitBoard;
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.enums.ReturnTurno;
+import lombok.Getter;
+
+/**
+ * Results of a tournament: for every check type, board size and pair of difficulties, the
+ * wins, ties and losses of the first difficulty against the second.
+ * <br>
+ * <br>
+ * Every thread of the {@link Arena} fills its own instance without any lock, and they are
+ * merged with {@link #unisci} at the end.
+ */
+public class Risultati {
+    public static final int VITTORIA = 0;
+    public static final int PAREGGIO = 1;
+    public static final int SCONFITTA = 2;
+
+    private static final int DIFFICOLTA = Difficulty.values().length;
+    private static final int MODALITA = CheckType.values().length;
+    private static final int DIMENSIONI = BitBoard.MAX_SIZE + 1;
+
+    //[checkType][size][a][b][esito di a]
+    private final long[] esiti = new long[MODALITA * DIMENSIONI * DIFFICOLTA * DIFFICOLTA * 3];
+    @Getter
+    private long partite;
+    @Getter
+    private long mosse;
+    @Getter
+    private long nanos;
+
+    /**
+     * Records a game between a and b
+     *
+     * @param esito P1 if a won, P2 if b won, TIE otherwise
+     * @param mosse moves of the game
+     */
+    void registra(CheckType checkType, int size, Difficulty a, Difficulty b, ReturnTurno esito, int mosse) {
+        int perA = switch (esito) {
+            case P1 -> VITTORIA;
+            case P2 -> SCONFITTA;
+            case TIE -> PAREGGIO;
+            case NOT_FINISHED -> throw new IllegalArgumentException("La partita non è finita");
+        };
+        esiti[indice(checkType, size, a, b) + perA]++;
+        // la stessa partita vista da b, tranne quando gioca contro se stessa
+        if (a != b)
+            esiti[indice(checkType, size, b, a) + 2 - perA]++;
+        this.partite++;
+        this.mosse += mosse;
+    }
+
+    void unisci(Risultati altri) {
+        for (int i = 0; i < esiti.length; i++)
+            esiti[i] += altri.esiti[i];
+        partite += altri.partite;
+        mosse += altri.mosse;
+    }
+
+    void setNanos(long nanos) {
+        this.nanos = nanos;
+    }
+
+    private static int indice(CheckType checkType, int size, Difficulty a, Difficulty b) {
+        return (((checkType.ordinal() * DIMENSIONI + size) * DIFFICOLTA + a.ordinal()) * DIFFICOLTA + b.ordinal()) * 3;
+    }
+
+    /**
+     * @param esito {@link #VITTORIA}, {@link #PAREGGIO} or {@link #SCONFITTA} of a
+     * @return games of a against b with that outcome, on the check type and board size
+     */
+    public long conta(Difficulty a, Difficulty b, CheckType checkType, int size, int esito) {
+        return esiti[indice(checkType, size, a, b) + esito];
+    }
+
+    /**
+     * @param esito {@link #VITTORIA}, {@link #PAREGGIO} or {@link #SCONFITTA} of a
+     * @return games of a against b with that outcome, on every check type and board size
+     */
+    public long conta(Difficulty a, Difficulty b, int esito) {
+        long totale = 0;
+        for (var checkType : CheckType.values())
+            for (int size = BitBoard.MIN_SIZE; size < DIMENSIONI; size++)
+                totale += conta(a, b, checkType, size, esito);
+        return totale;
+    }
+
+    /**
+     * @return points of a against b on every check type and board size, a win is 1 and a tie 0.5,
+     *         NaN if they did not play
+     */
+    public double punteggio(Difficulty a, Difficulty b) {
+        long vittorie = conta(a, b, VITTORIA);
+        long pareggi = conta(a, b, PAREGGIO);
+        long giocate = vittorie + pareggi + conta(a, b, SCONFITTA);
+        return giocate == 0 ? Double.NaN : (vittorie + pareggi / 2.0) / giocate;
+    }
+
+    public double partiteAlSecondo() {
+        return nanos == 0 ? 0 : partite * 1e9 / nanos;
+    }
+
+    public double lunghezzaMedia() {
+        return partite == 0 ? 0 : (double) mosse / partite;
+    }
+}
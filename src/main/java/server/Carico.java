@@ -0,0 +1,140 @@
+package server;
+
+import logic.GameState;
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.metriche.Istogramma;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load generator for the {@link ServerPartite} on localhost: it opens all the connections first,
+ * then every connection plays its games with random moves, so the server holds every session
+ * at the same time. It prints the games and commands per second and the latency of a command.
+ * <pre>
+ * java -cp tris.jar server.Carico [connessioni] [partite] [size] [modalita] [difficolta] [porta]
+ * </pre>
+ * The defaults are 10000 connections, 10 games each, 3x3, ALL, EASY on port {@value ServerPartite#PORTA}.
+ * Tens of thousands of connections need a limit of open files above them (<code>ulimit -n</code>).
+ */
+public class Carico {
+    private final int connessioni;
+    private final int partite;
+    private final int size;
+    private final CheckType checkType;
+    private final Difficulty difficulty;
+    private final int porta;
+    private final Istogramma latenze = new Istogramma();
+    private final LongAdder partiteGiocate = new LongAdder();
+    private final LongAdder errori = new LongAdder();
+
+    public Carico(int connessioni, int partite, int size, CheckType checkType, Difficulty difficulty, int porta) {
+        this.connessioni = connessioni;
+        this.partite = partite;
+        this.size = size;
+        this.checkType = checkType;
+        this.difficulty = difficulty;
+        this.porta = porta;
+    }
+
+    public void esegui() throws InterruptedException {
+        var connesse = new CountDownLatch(connessioni);
+        var via = new CountDownLatch(1);
+        var semi = new SplittableRandom();
+        List<Future<?>> client = new ArrayList<>(connessioni);
+        long inizio;
+        try (var esecutore = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < connessioni; i++) {
+                var random = semi.split();
+                client.add(esecutore.submit(() -> {
+                    gioca(random, connesse, via);
+                    return null;
+                }));
+            }
+            connesse.await();
+            System.out.printf("%d connessioni aperte, errori %d%n", connessioni - errori.sum(), errori.sum());
+            inizio = System.nanoTime();
+            via.countDown();
+        }
+        long nanos = System.nanoTime() - inizio;
+
+        System.out.printf("%d partite in %.1f s: %.0f partite/s, %.0f comandi/s, errori %d%n",
+                partiteGiocate.sum(), nanos / 1e9, partiteGiocate.sum() * 1e9 / nanos,
+                latenze.getConteggio() * 1e9 / nanos, errori.sum());
+        System.out.println("latenza di un comando: " + latenze.riepilogo());
+    }
+
+    private void gioca(SplittableRandom random, CountDownLatch connesse, CountDownLatch via) {
+        Socket socket;
+        try {
+            socket = new Socket(InetAddress.getLoopbackAddress(), porta);
+        } catch (IOException e) {
+            errori.increment();
+            connesse.countDown();
+            return;
+        }
+        connesse.countDown();
+        try (socket;
+             var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             var out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII))) {
+            socket.setTcpNoDelay(true);
+            via.await();
+            // copia locale della partita, per scegliere solo caselle libere
+            var stato = new GameState(size, checkType);
+            for (int partita = 0; partita < partite; partita++) {
+                stato.reset();
+                var risposta = invia(in, out, "NUOVA " + size + " " + checkType + " " + difficulty);
+                while (risposta.equals("OK") || risposta.startsWith("AI ") && risposta.split(" ").length == 2) {
+                    if (risposta.startsWith("AI "))
+                        stato.move(Integer.parseInt(risposta.substring(3)));
+                    int cella = stato.casellaCasuale(random);
+                    stato.move(cella);
+                    risposta = invia(in, out, "MOSSA " + cella);
+                }
+                if (risposta.startsWith("ERRORE")) {
+                    errori.increment();
+                    return;
+                }
+                partiteGiocate.increment();
+            }
+            invia(in, out, Sessione.ESCI);
+        } catch (IOException e) {
+            errori.increment();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private String invia(BufferedReader in, BufferedWriter out, String comando) throws IOException {
+        long inizio = System.nanoTime();
+        out.write(comando);
+        out.write('\n');
+        out.flush();
+        var risposta = in.readLine();
+        latenze.registra(System.nanoTime() - inizio);
+        if (risposta == null)
+            throw new EOFException("Connessione chiusa dal server");
+        return risposta;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        new Carico(
+                args.length > 0 ? Integer.parseInt(args[0]) : 10_000,
+                args.length > 1 ? Integer.parseInt(args[1]) : 10,
+                args.length > 2 ? Integer.parseInt(args[2]) : 3,
+                args.length > 3 ? CheckType.valueOf(args[3]) : CheckType.ALL,
+                args.length > 4 ? Difficulty.valueOf(args[4]) : Difficulty.EASY,
+                args.length > 5 ? Integer.parseInt(args[5]) : ServerPartite.PORTA
+        ).esegui();
+    }
+}
@@ -0,0 +1,151 @@
+package server;
+
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+import lombok.Getter;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Broadcast of one game to its spectators. Every move is encoded once, when it is played, as the
+ * line <code>M &lt;numero&gt; &lt;cella&gt; &lt;X|O&gt;</code>, and the same bytes are written to every
+ * spectator: nothing is serialized per spectator and the board is never sent again after the first time.
+ * <br>
+ * <br>
+ * There is no queue per spectator: the moves stay in the game ({@link #pubblica}), and every spectator
+ * only keeps how many it has already sent. A spectator that wakes up behind sends all the moves it
+ * missed in one write, and one that is more than {@value #RITARDO_MASSIMO} moves behind gets a snapshot instead.
+ * A slow spectator is slowed down by its own socket, while the game and the other spectators do not
+ * wait for it.
+ * <br>
+ * <br>
+ * <b>Lines sent</b>:
+ * <ul>
+ *     <li><code>S &lt;id&gt; &lt;size&gt; &lt;CheckType&gt; &lt;mosse&gt; &lt;celle&gt;</code> snapshot, the cells row by
+ *     row as <code>.</code>, <code>X</code> and <code>O</code>, sent first and to a spectator too far behind</li>
+ *     <li><code>M &lt;numero&gt; &lt;cella&gt; &lt;X|O&gt;</code> a move, numbered from 1</li>
+ *     <li><code>FINE &lt;X|O|PAREGGIO&gt;</code> the game is over, <code>FINE CHIUSA</code> if it was abandoned</li>
+ * </ul>
+ */
+class Diretta {
+    static final int RITARDO_MASSIMO = 32;
+
+    @Getter
+    private final long id;
+    private final int size;
+    private final CheckType checkType;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition nuoveMosse = lock.newCondition();
+    //copia della tabella per le snapshot, la GameState è solo del thread della sessione
+    private final char[] celle;
+    //riga già codificata di ogni mossa
+    private final byte[][] righe;
+    private int mosse;
+    private byte[] fine;
+    //snapshot dell'ultima versione chiesta, condivisa da chi la chiede alla stessa mossa
+    private byte[] snapshot;
+    private int versioneSnapshot = -1;
+
+    Diretta(long id, int size, CheckType checkType) {
+        this.id = id;
+        this.size = size;
+        this.checkType = checkType;
+        this.celle = new char[size * size];
+        this.righe = new byte[size * size][];
+        Arrays.fill(celle, '.');
+    }
+
+    /**
+     * Publishes a move and wakes up the spectators, it never waits for them
+     */
+    void pubblica(int cella, Symbol simbolo) {
+        char carattere = simbolo.name().charAt(0);
+        lock.lock();
+        try {
+            if (fine != null)
+                return;
+            celle[cella] = carattere;
+            righe[mosse] = riga("M " + (mosse + 1) + " " + cella + " " + carattere);
+            mosse++;
+            nuoveMosse.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ends the broadcast
+     *
+     * @param vincitore symbol that won, {@link Symbol#EMPTY} for a tie, null if the game was abandoned
+     */
+    void finisci(Symbol vincitore) {
+        lock.lock();
+        try {
+            if (fine != null)
+                return;
+            fine = riga("FINE " + (vincitore == null ? "CHIUSA" : vincitore == Symbol.EMPTY ? "PAREGGIO" : vincitore.name()));
+            nuoveMosse.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sends the game to a spectator until it is over: a snapshot first, then the moves as they are played
+     *
+     * @throws IOException if the spectator cannot be written, the game goes on without it
+     */
+    void trasmetti(OutputStream out) throws IOException, InterruptedException {
+        int inviate = -1;
+        while (true) {
+            byte[] snapshotDaInviare = null;
+            int da, a;
+            byte[] ultima;
+            lock.lock();
+            try {
+                while (inviate == mosse && fine == null)
+                    nuoveMosse.await();
+                da = inviate;
+                a = mosse;
+                ultima = fine;
+                if (da == -1 || a - da > RITARDO_MASSIMO)
+                    snapshotDaInviare = snapshot();
+            } finally {
+                lock.unlock();
+            }
+
+            // scrittura fuori dal lock, uno spettatore lento non blocca nessuno
+            if (snapshotDaInviare != null) {
+                out.write(snapshotDaInviare);
+            } else {
+                for (int i = da; i < a; i++)
+                    out.write(righe[i]);
+            }
+            inviate = a;
+            if (ultima != null) {
+                out.write(ultima);
+                out.flush();
+                return;
+            }
+            out.flush();
+        }
+    }
+
+    //da chiamare con il lock
+    private byte[] snapshot() {
+        if (versioneSnapshot != mosse) {
+            snapshot = riga("S " + id + " " + size + " " + checkType + " " + mosse + " " + new String(celle));
+            versioneSnapshot = mosse;
+        }
+        return snapshot;
+    }
+
+    private static byte[] riga(String riga) {
+        return (riga + "\n").getBytes(StandardCharsets.US_ASCII);
+    }
+}
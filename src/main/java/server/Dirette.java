@@ -0,0 +1,40 @@
+package server;
+
+import logic.enums.CheckType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The games of the {@link ServerPartite} that can be watched, by id
+ */
+class Dirette {
+    private final Map<Long, Diretta> dirette = new ConcurrentHashMap<>();
+    private final AtomicLong prossimoId = new AtomicLong(1);
+
+    Diretta apri(int size, CheckType checkType) {
+        var diretta = new Diretta(prossimoId.getAndIncrement(), size, checkType);
+        dirette.put(diretta.getId(), diretta);
+        return diretta;
+    }
+
+    /**
+     * @return the game, null if it does not exist or its session has moved on
+     */
+    Diretta get(long id) {
+        return dirette.get(id);
+    }
+
+    /**
+     * Removes the game, its spectators receive the end if they did not already
+     */
+    void chiudi(Diretta diretta) {
+        dirette.remove(diretta.getId());
+        diretta.finisci(null);
+    }
+
+    int size() {
+        return dirette.size();
+    }
+}
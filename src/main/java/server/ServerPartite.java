@@ -0,0 +1,158 @@
+package server;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless game server over TCP: every connection is a {@link Sessione} with its own game and AI,
+ * served by its own virtual thread, so tens of thousands of clients cost a few kilobytes each
+ * and a client waiting for the AI does not hold a platform thread.
+ * <br>
+ * <br>
+ * The moves of EXTREME and MONTE_CARLO search on one thread each, on a pool of platform threads
+ * with one per core (the others wait in its queue): a connection waiting for a search unmounts its
+ * virtual thread, so the searches never hold the carriers the connections run on. The protocol is described in {@link Sessione}; a connection that sends
+ * <code>GUARDA &lt;id&gt;</code> receives the game until it is over, see {@link Diretta}.
+ * <br>
+ * <br>
+ * Start it with <code>gradle server</code> or <code>java -cp tris.jar server.ServerPartite [porta]</code>,
+ * the default port is {@value #PORTA}. A connection idle for <code>tris.server.inattivita</code>
+ * milliseconds (5 minutes by default) is closed.
+ */
+@Slf4j
+public class ServerPartite implements Closeable {
+    public static final int PORTA = 7777;
+    private static final int CODA = 4096;
+    private static final String GUARDA = "GUARDA";
+
+    private final ServerSocket socket;
+    private final ExecutorService connessioni = Executors.newVirtualThreadPerTaskExecutor();
+    //thread di piattaforma delle ricerche EXTREME e MONTE_CARLO, uno per core
+    private final ExecutorService ricerche = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(),
+            Thread.ofPlatform().name("ricerca-server-", 1).daemon().factory());
+    private final int inattivita = Integer.getInteger("tris.server.inattivita", 300_000);
+    private final AtomicInteger attive = new AtomicInteger();
+    private final LongAdder comandi = new LongAdder();
+    private final Dirette dirette = new Dirette();
+
+    /**
+     * @param porta port to listen on localhost, 0 for any free port
+     */
+    public ServerPartite(int porta) throws IOException {
+        this.socket = new ServerSocket(porta, CODA, InetAddress.getLoopbackAddress());
+    }
+
+    public int getPorta() {
+        return socket.getLocalPort();
+    }
+
+    /**
+     * @return connections open now
+     */
+    public int getAttive() {
+        return attive.get();
+    }
+
+    /**
+     * @return commands answered since the start
+     */
+    public long getComandi() {
+        return comandi.sum();
+    }
+
+    /**
+     * Accepts connections until {@link #close()} is called
+     */
+    public void servi() throws IOException {
+        log.info("Server in ascolto su {}", socket.getLocalSocketAddress());
+        while (!socket.isClosed()) {
+            Socket client;
+            try {
+                client = socket.accept();
+            } catch (SocketException e) {
+                // socket chiuso da close()
+                break;
+            }
+            connessioni.execute(() -> gestisci(client));
+        }
+    }
+
+    private void gestisci(Socket client) {
+        attive.incrementAndGet();
+        var sessione = new Sessione(ricerche, dirette);
+        try (client;
+             var in = new BufferedReader(new InputStreamReader(client.getInputStream(), StandardCharsets.US_ASCII));
+             var out = new BufferedOutputStream(client.getOutputStream())) {
+            client.setTcpNoDelay(true);
+            client.setSoTimeout(inattivita);
+            String riga;
+            while ((riga = in.readLine()) != null) {
+                if (riga.isBlank())
+                    continue;
+                comandi.increment();
+                if (riga.regionMatches(true, 0, GUARDA, 0, GUARDA.length())) {
+                    guarda(riga, out);
+                    continue;
+                }
+                var risposta = sessione.esegui(riga);
+                out.write((risposta + "\n").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+                if (risposta.equals("CIAO"))
+                    break;
+            }
+        } catch (SocketTimeoutException e) {
+            log.debug("Connessione {} inattiva, chiusa", client.getRemoteSocketAddress());
+        } catch (IOException e) {
+            log.debug("Connessione {} interrotta", client.getRemoteSocketAddress(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            sessione.chiudi();
+            attive.decrementAndGet();
+        }
+    }
+
+    //la connessione riceve la partita fino alla fine, poi torna ai comandi
+    private void guarda(String riga, OutputStream out) throws IOException, InterruptedException {
+        Diretta diretta = null;
+        try {
+            diretta = dirette.get(Long.parseLong(riga.substring(GUARDA.length()).trim()));
+        } catch (NumberFormatException e) {
+            // come una partita che non esiste
+        }
+        if (diretta == null) {
+            out.write("ERRORE partita non trovata\n".getBytes(StandardCharsets.US_ASCII));
+            out.flush();
+            return;
+        }
+        diretta.trasmetti(out);
+    }
+
+    /**
+     * Stops accepting connections and closes the ones open
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        connessioni.shutdownNow();
+        ricerche.shutdown();
+    }
+
+    public static void main(String[] args) throws IOException {
+        int porta = args.length > 0 ? Integer.parseInt(args[0]) : PORTA;
+        try (var server = new ServerPartite(porta)) {
+            server.servi();
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package server;
+
+import logic.Ai;
+import logic.GameFunctions;
+import logic.GameState;
+import logic.Player;
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.enums.ReturnTurno;
+import logic.enums.Symbol;
+import logic.search.Mcts;
+import logic.search.RicercaParallela;
+import logic.search.TranspositionTable;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
+/**
+ * Everything a client of the {@link ServerPartite} is playing: its {@link GameState}, its {@link Ai}
+ * and its {@link Player}. A session is used by the thread of its connection only, which waits while
+ * the moves of EXTREME and MONTE_CARLO are searched on the search threads of the server, and shares
+ * with the other sessions just the read-only 3x3 table and the shared transposition table.
+ * <br>
+ * <br>
+ * <b>Protocol</b>: one command per line, one answer per line.
+ * <ul>
+ *     <li><code>NUOVA &lt;size&gt; &lt;CheckType&gt; &lt;Difficulty&gt; [SECONDO]</code> starts a game, the
+ *     player has X; answers <code>OK</code>, or <code>AI &lt;cella&gt;</code> with SECONDO since the AI
+ *     moves first</li>
+ *     <li><code>MOSSA &lt;cella&gt;</code> plays a cell; answers <code>AI &lt;cella&gt;</code>,
+ *     <code>AI &lt;cella&gt; &lt;esito&gt;</code> if the move of the AI ended the game or
+ *     <code>FINE &lt;esito&gt;</code> if the move of the player did, where the outcome is
+ *     VITTORIA, SCONFITTA or PAREGGIO for the player</li>
+ *     <li><code>ID</code> answers <code>ID &lt;id&gt;</code>, the id of the game to watch it with
+ *     <code>GUARDA &lt;id&gt;</code> (see {@link Diretta})</li>
+ *     <li><code>STATO</code> answers <code>STATO &lt;size&gt; &lt;CheckType&gt; &lt;Difficulty&gt; &lt;celle&gt;</code>,
+ *     the cells row by row as <code>.</code>, <code>X</code> and <code>O</code></li>
+ *     <li><code>ESCI</code> answers <code>CIAO</code> and closes the connection</li>
+ * </ul>
+ * Every error answers <code>ERRORE &lt;messaggio&gt;</code> and leaves the game as it was.
+ */
+class Sessione {
+    static final String ESCI = "ESCI";
+
+    //thread di piattaforma delle ricerche EXTREME e MONTE_CARLO di tutto il server, uno per core
+    private final ExecutorService ricerche;
+    private final Dirette dirette;
+    private final Player player = new Player("client", Symbol.X, 0);
+    private GameState stato;
+    private Ai ai;
+    //la partita in corso vista dagli spettatori
+    private Diretta diretta;
+
+    Sessione(ExecutorService ricerche, Dirette dirette) {
+        this.ricerche = ricerche;
+        this.dirette = dirette;
+    }
+
+    /**
+     * @return the answer to the command, without the new line
+     */
+    String esegui(String riga) {
+        var parti = riga.trim().split("\\s+");
+        try {
+            return switch (parti[0].toUpperCase(Locale.ROOT)) {
+                case "NUOVA" -> nuova(parti);
+                case "MOSSA" -> mossa(parti);
+                case "ID" -> id();
+                case "STATO" -> stato();
+                case ESCI -> "CIAO";
+                default -> "ERRORE comando sconosciuto: " + parti[0];
+            };
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return "ERRORE " + e.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "ERRORE server in chiusura";
+        }
+    }
+
+    private String nuova(String[] parti) throws InterruptedException {
+        if (parti.length < 4)
+            throw new IllegalArgumentException("uso: NUOVA <size> <modalita> <difficolta> [SECONDO]");
+        int size = Integer.parseInt(parti[1]);
+        var checkType = CheckType.valueOf(parti[2].toUpperCase(Locale.ROOT));
+        var difficulty = Difficulty.valueOf(parti[3].toUpperCase(Locale.ROOT));
+        boolean secondo = parti.length > 4 && parti[4].equalsIgnoreCase("SECONDO");
+
+        var nuovo = new GameState(size, checkType);
+        chiudi();
+        stato = nuovo;
+        diretta = dirette.apri(size, checkType);
+        ai = new Ai(difficulty, Symbol.O, 0);
+        // la ricerca usa un solo thread: il parallelismo del server sono le sessioni
+        if (difficulty == Difficulty.EXTREME)
+            ai.setRicerca(new RicercaParallela(1, TranspositionTable.getCondivisa()));
+        if (difficulty == Difficulty.MONTE_CARLO)
+            ai.setMcts(new Mcts(1, 0));
+        if (!secondo)
+            return "OK";
+        int mossa = pensa();
+        stato.move(mossa, ai.getSimbolo());
+        diretta.pubblica(mossa, ai.getSimbolo());
+        return "AI " + mossa;
+    }
+
+    private String mossa(String[] parti) throws InterruptedException {
+        if (stato == null || !inCorso())
+            throw new IllegalStateException("nessuna partita in corso");
+        if (parti.length < 2)
+            throw new IllegalArgumentException("uso: MOSSA <cella>");
+        int cella = Integer.parseInt(parti[1]);
+        if (cella < 0 || cella >= stato.getCelle() || !stato.isEmpty(cella))
+            throw new IllegalArgumentException("casella non valida: " + cella);
+
+        stato.move(cella, player.getSimbolo());
+        diretta.pubblica(cella, player.getSimbolo());
+        var esito = turnoAi();
+
+        int ultima = stato.getLastMove();
+        if (ultima != cella)
+            diretta.pubblica(ultima, ai.getSimbolo());
+        if (esito != ReturnTurno.NOT_FINISHED)
+            diretta.finisci(stato.getVincitore());
+        if (ultima == cella)
+            return "FINE " + esito(esito);
+        if (esito == ReturnTurno.NOT_FINISHED)
+            return "AI " + ultima;
+        return "AI " + ultima + " " + esito(esito);
+    }
+
+    private String id() {
+        if (diretta == null)
+            throw new IllegalStateException("nessuna partita");
+        return "ID " + diretta.getId();
+    }
+
+    /**
+     * Closes the broadcast of the game, when the session starts another one or its connection ends
+     */
+    void chiudi() {
+        if (diretta != null)
+            dirette.chiudi(diretta);
+        diretta = null;
+    }
+
+    private String stato() {
+        if (stato == null)
+            throw new IllegalStateException("nessuna partita");
+        var celle = new StringBuilder(stato.getCelle());
+        for (int cella = 0; cella < stato.getCelle(); cella++) {
+            var simbolo = stato.getSimbolo(cella);
+            celle.append(simbolo == Symbol.EMPTY ? '.' : simbolo.name().charAt(0));
+        }
+        return "STATO " + stato.getSize() + " " + stato.getCheckType() + " " + ai.getDifficulty() + " " + celle;
+    }
+
+    //controlla la mossa del player e, se la partita continua, fa giocare l'AI
+    private ReturnTurno turnoAi() throws InterruptedException {
+        return pensa(() -> GameFunctions.turnoAi(player, ai, stato, stato.getCheckType()));
+    }
+
+    private int pensa() throws InterruptedException {
+        return pensa(() -> ai.azione(stato));
+    }
+
+    //le ricerche girano sui thread del server: il thread virtuale della connessione le aspetta senza tenere un carrier
+    private <T> T pensa(Supplier<T> mossa) throws InterruptedException {
+        if (!cercaLimitata())
+            return mossa.get();
+        var ricerca = ricerche.submit(mossa::get);
+        boolean interrotto = false;
+        try {
+            while (true) {
+                try {
+                    return ricerca.get();
+                } catch (InterruptedException e) {
+                    // la ricerca muove sulla partita della sessione: si aspetta che finisca, entro il suo tempo
+                    interrotto = true;
+                }
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException errore)
+                throw errore;
+            throw new IllegalStateException(e.getCause());
+        } finally {
+            if (interrotto)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    //le difficoltà che cercano occupano un core per tutto il tempo della mossa
+    private boolean cercaLimitata() {
+        return ai.getDifficulty() == Difficulty.EXTREME || ai.getDifficulty() == Difficulty.MONTE_CARLO;
+    }
+
+    private boolean inCorso() {
+        return stato.getVincitore() == Symbol.EMPTY && !stato.isFull();
+    }
+
+    private static String esito(ReturnTurno esito) {
+        return switch (esito) {
+            case P1 -> "VITTORIA";
+            case P2 -> "SCONFITTA";
+            case TIE -> "PAREGGIO";
+            case NOT_FINISHED -> throw new IllegalStateException("partita non finita");
+        };
+    }
+}
@@ -0,0 +1,173 @@
+package ui;
+
+import logic.enums.Symbol;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache of the images of the symbols, so placing a mark on the board is a single lookup instead of
+ * an image decode and a smooth rescale on the EDT.
+ * <br>
+ * <br>
+ * Every image of {@link Symbol#getPaths()} is decoded once ({@link #precarica()} does it at startup on a
+ * background thread) and scaled once per cell size; when the board is resized {@link #prescala} prepares
+ * the new size in background and drops the icons of the other sizes.
+ * <br>
+ * <br>
+ * Nothing is decoded or scaled on the EDT: on a miss {@link #icona} gives a temporary icon that draws the
+ * decoded image with the fast scaling of the {@link Graphics} (or nothing if it is not decoded yet) and
+ * queues the smooth scale, then the component is repainted. Only the background thread writes the cache,
+ * so dropping the old sizes never races with an icon being added.
+ */
+@Slf4j
+public final class SpriteCache {
+    private static final ExecutorService SFONDO = Executors.newSingleThreadExecutor(r -> {
+        var thread = new Thread(r, "sprite");
+        thread.setDaemon(true);
+        return thread;
+    });
+    //percorso -> immagine decodificata
+    private static final Map<String, BufferedImage> ORIGINALI = new ConcurrentHashMap<>();
+    private static final Map<Chiave, Icon> SCALATE = new ConcurrentHashMap<>();
+    //icone già chieste al thread in background, per non accodarle a ogni repaint
+    private static final Set<Chiave> IN_CODA = ConcurrentHashMap.newKeySet();
+
+    private record Chiave(Symbol simbolo, int stile, int larghezza, int altezza) {
+    }
+
+    private SpriteCache() {
+    }
+
+    /**
+     * Decodes the images of every symbol and style on a background thread
+     */
+    public static void precarica() {
+        SFONDO.execute(() -> {
+            for (var simbolo : Symbol.values())
+                for (String path : simbolo.getPaths())
+                    originale(path);
+        });
+    }
+
+    /**
+     * Prepares on a background thread the icons of every symbol and style for the new size of the
+     * cells, and evicts the icons of the other sizes
+     */
+    public static void prescala(int larghezza, int altezza) {
+        if (larghezza <= 0 || altezza <= 0)
+            return;
+        SFONDO.execute(() -> {
+            SCALATE.keySet().removeIf(chiave -> chiave.larghezza() != larghezza || chiave.altezza() != altezza);
+            for (var simbolo : Symbol.values())
+                for (int stile = 0; stile < simbolo.getPaths().length; stile++)
+                    icona(new Chiave(simbolo, stile, larghezza, altezza));
+        });
+    }
+
+    /**
+     * @param simbolo symbol to draw
+     * @param stile   index of the style, see {@link Symbol#getPath(int)}
+     * @return the icon of the symbol scaled to the size, a temporary one while it is being scaled,
+     *         or null if the symbol has no image
+     */
+    public static Icon icona(Symbol simbolo, int stile, int larghezza, int altezza) {
+        if (simbolo.getPaths().length == 0)
+            return null;
+        // stesso ripiego di Symbol.getPath per gli stili non validi
+        if (stile < 0 || stile >= simbolo.getPaths().length)
+            stile = 0;
+        var chiave = new Chiave(simbolo, stile, larghezza, altezza);
+        var icona = SCALATE.get(chiave);
+        if (icona != null)
+            return icona;
+        return new Provvisoria(chiave, ORIGINALI.get(simbolo.getPath(stile)));
+    }
+
+    //icona finché quella scalata non è pronta: disegna l'originale, se c'è, e chiede la scalata in background
+    private record Provvisoria(Chiave chiave, BufferedImage originale) implements Icon {
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            if (originale != null)
+                g.drawImage(originale, x, y, chiave.larghezza(), chiave.altezza(), null);
+            if (IN_CODA.add(chiave))
+                SFONDO.execute(() -> scalaInSfondo(chiave, c));
+        }
+
+        @Override
+        public int getIconWidth() {
+            return chiave.larghezza();
+        }
+
+        @Override
+        public int getIconHeight() {
+            return chiave.altezza();
+        }
+    }
+
+    private static void scalaInSfondo(Chiave chiave, Component daRidisegnare) {
+        Icon icona;
+        try {
+            icona = icona(chiave);
+        } finally {
+            IN_CODA.remove(chiave);
+        }
+        // repaint si può chiamare da qualunque thread
+        if (icona != null)
+            daRidisegnare.repaint();
+    }
+
+    //solo sul thread in background: decodifica e scala se serve
+    private static Icon icona(Chiave chiave) {
+        var icona = SCALATE.get(chiave);
+        if (icona != null)
+            return icona;
+        var originale = originale(chiave.simbolo().getPath(chiave.stile()));
+        if (originale == null)
+            return null;
+        icona = new ImageIcon(scala(originale, chiave.larghezza(), chiave.altezza()));
+        SCALATE.put(chiave, icona);
+        return icona;
+    }
+
+    private static BufferedImage originale(String path) {
+        var immagine = ORIGINALI.get(path);
+        if (immagine != null)
+            return immagine;
+        try (InputStream in = SpriteCache.class.getResourceAsStream(path)) {
+            if (in == null) {
+                log.error("Impossibile trovare l'immagine: {} ", path);
+                return null;
+            }
+            immagine = ImageIO.read(in);
+        } catch (IOException e) {
+            log.error("Impossibile leggere l'immagine: {} ", path, e);
+            return null;
+        }
+        ORIGINALI.putIfAbsent(path, immagine);
+        return immagine;
+    }
+
+    private static BufferedImage scala(BufferedImage originale, int larghezza, int altezza) {
+        var scalata = new BufferedImage(larghezza, altezza, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = scalata.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.drawImage(originale, 0, 0, larghezza, altezza, null);
+        } finally {
+            g.dispose();
+        }
+        return scalata;
+    }
+}
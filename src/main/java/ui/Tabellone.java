@@ -0,0 +1,206 @@
+package ui;
+
+import logic.GameState;
+import logic.enums.Symbol;
+import logic.metriche.Metriche;
+import lombok.Getter;
+import lombok.Setter;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ActionEvent;
+import java.awt.event.ComponentEvent;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/**
+ * The game board as a single component: it paints the grid and the symbols of a {@link GameState}
+ * with the images of the {@link SpriteCache}, and turns a mouse click into the index of the cell.
+ * <br>
+ * <br>
+ * A move repaints only the rectangle of its cell ({@link #ridisegna(int)}), and changing the size of the
+ * board only swaps the state ({@link #setStato}), so no component is created or laid out again: boards
+ * up to {@link logic.BitBoard#MAX_SIZE} cells per side cost the same as the 3x3.
+ * <br>
+ * <br>
+ * F3 shows or hides an overlay with the {@link Metriche} of the AI, it starts visible with the system
+ * property <code>tris.overlay</code>.
+ */
+public class Tabellone extends JComponent {
+    private static final int SPAZIO = 4;
+    private static final Color SFONDO = Color.gray;
+    private static final Color CELLA = new Color(238, 238, 238);
+    private static final Color SFONDO_OVERLAY = new Color(0, 0, 0, 170);
+    private static final Rectangle OVERLAY = new Rectangle(0, 0, 360, 66);
+
+    @Getter
+    private GameState stato;
+    //stile delle immagini di ogni simbolo, vedi Symbol.getPath
+    private final Map<Symbol, Integer> stili = new EnumMap<>(Symbol.class);
+    /**
+     * Called with the index of the empty cell clicked by the user
+     */
+    @Setter
+    private IntConsumer azioneClick = cella -> {};
+    @Getter
+    private boolean overlay = Boolean.getBoolean("tris.overlay");
+
+    public Tabellone(GameState stato) {
+        this.stato = stato;
+        setOpaque(true);
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                int cella = cellaIn(e.getX(), e.getY());
+                if (cella != -1 && Tabellone.this.stato.isEmpty(cella))
+                    azioneClick.accept(cella);
+            }
+        });
+        getInputMap(WHEN_IN_FOCUSED_WINDOW).put(KeyStroke.getKeyStroke(KeyEvent.VK_F3, 0), "overlay");
+        getActionMap().put("overlay", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                setOverlay(!overlay);
+            }
+        });
+        addComponentListener(new ComponentAdapter() {
+            @Override
+            public void componentResized(ComponentEvent e) {
+                prescala();
+            }
+        });
+    }
+
+    /**
+     * Shows another game, for example after the size of the board has changed
+     */
+    public void setStato(GameState stato) {
+        this.stato = stato;
+        prescala();
+        repaint();
+    }
+
+    public void setOverlay(boolean overlay) {
+        this.overlay = overlay;
+        repaint(OVERLAY);
+    }
+
+    public void setStile(Symbol simbolo, int stile) {
+        stili.put(simbolo, stile);
+    }
+
+    /**
+     * Places the symbol on the cell of the state and repaints only that cell
+     */
+    public void gioca(int cella, Symbol simbolo) {
+        stato.move(cella, simbolo);
+        ridisegna(cella);
+    }
+
+    /**
+     * Repaints only the rectangle of the cell, and the overlay if it is visible
+     */
+    public void ridisegna(int cella) {
+        if (cella >= 0)
+            repaint(rettangolo(cella));
+        if (overlay)
+            repaint(OVERLAY);
+    }
+
+    //lato di una casella, uguale per tutte
+    private int lato() {
+        int size = stato.getSize();
+        return Math.max(1, (Math.min(getWidth(), getHeight()) - SPAZIO * (size + 1)) / size);
+    }
+
+    //la griglia è centrata nel componente
+    private int margineX() {
+        return (getWidth() - griglia()) / 2;
+    }
+
+    private int margineY() {
+        return (getHeight() - griglia()) / 2;
+    }
+
+    private int griglia() {
+        int size = stato.getSize();
+        return lato() * size + SPAZIO * (size + 1);
+    }
+
+    private Rectangle rettangolo(int cella) {
+        int size = stato.getSize(), lato = lato();
+        int x = margineX() + SPAZIO + (cella % size) * (lato + SPAZIO);
+        int y = margineY() + SPAZIO + (cella / size) * (lato + SPAZIO);
+        return new Rectangle(x, y, lato, lato);
+    }
+
+    /**
+     * @return the cell under the point, or -1 if the point is on the border or between two cells
+     */
+    private int cellaIn(int x, int y) {
+        int size = stato.getSize(), passo = lato() + SPAZIO;
+        int dx = x - margineX() - SPAZIO, dy = y - margineY() - SPAZIO;
+        if (dx < 0 || dy < 0)
+            return -1;
+        int col = dx / passo, row = dy / passo;
+        if (col >= size || row >= size || dx % passo >= lato() || dy % passo >= lato())
+            return -1;
+        return row * size + col;
+    }
+
+    private void prescala() {
+        if (getWidth() > 0 && getHeight() > 0)
+            SpriteCache.prescala(lato(), lato());
+    }
+
+    @Override
+    protected void paintComponent(Graphics g) {
+        g.setColor(SFONDO);
+        g.fillRect(0, 0, getWidth(), getHeight());
+
+        int lato = lato();
+        Rectangle clip = g.getClipBounds();
+        for (int cella = 0; cella < stato.getCelle(); cella++) {
+            var rettangolo = rettangolo(cella);
+            // con il repaint di una sola casella si disegna solo quella
+            if (clip != null && !clip.intersects(rettangolo))
+                continue;
+            g.setColor(CELLA);
+            g.fillRect(rettangolo.x, rettangolo.y, lato, lato);
+            var simbolo = stato.getSimbolo(cella);
+            if (simbolo == Symbol.EMPTY)
+                continue;
+            var icona = SpriteCache.icona(simbolo, stili.getOrDefault(simbolo, 0), lato, lato);
+            if (icona != null)
+                icona.paintIcon(this, g, rettangolo.x, rettangolo.y);
+        }
+        if (overlay)
+            disegnaOverlay(g);
+    }
+
+    //ultima mossa dell'AI, i suoi percentili e i contatori della ricerca
+    private void disegnaOverlay(Graphics g) {
+        var metriche = Metriche.getIstanza();
+        var mossa = metriche.getUltimaMossa();
+        String[] righe = {
+                mossa == null ? "AI: nessuna mossa" : String.format("AI %s %dx%d: %.2f ms",
+                        mossa.difficulty(), mossa.size(), mossa.size(), mossa.nanos() / 1e6),
+                mossa == null ? "" : metriche.latenze(mossa.difficulty(), mossa.size()).riepilogo(),
+                String.format("nodi %,d  playout %,d  hit TT %.0f%%", metriche.getNodiCercati(),
+                        metriche.getPlayoutMonteCarlo(), metriche.getHitRateTabella() * 100),
+                "salvataggi " + metriche.getSalvataggi().riepilogo()
+        };
+        g.setColor(SFONDO_OVERLAY);
+        g.fillRect(OVERLAY.x, OVERLAY.y, OVERLAY.width, OVERLAY.height);
+        g.setColor(Color.white);
+        g.setFont(g.getFont().deriveFont(11f));
+        int altezza = g.getFontMetrics().getHeight();
+        for (int i = 0; i < righe.length; i++)
+            g.drawString(righe[i], OVERLAY.x + 6, OVERLAY.y + 4 + altezza * (i + 1) - g.getFontMetrics().getDescent());
+    }
+}
@@ -0,0 +1,115 @@
+package logic.save;
+
+import logic.enums.CheckType;
+import logic.enums.Difficulty;
+import logic.enums.Symbol;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StoricoPartiteTest {
+    private static final List<Partita> PARTITE = List.of(
+            new Partita(3, CheckType.ALL, Difficulty.EXTREME, Symbol.X, Symbol.X, Symbol.O, new int[]{4, 0, 8, 2, 6, 1}),
+            new Partita(4, CheckType.LINEAR, Difficulty.EASY, Symbol.O, Symbol.O, Symbol.EMPTY, new int[]{5, 10}),
+            // celle oltre 127: varint di due byte
+            new Partita(12, CheckType.OBLIQUO, Difficulty.MONTE_CARLO, Symbol.X, Symbol.O, Symbol.X, new int[]{143, 0, 128, 77})
+    );
+
+    @TempDir
+    Path cartella;
+
+    @Test
+    void rilegge_le_partite_scritte() throws IOException {
+        var file = cartella.resolve("storico.bin");
+        scrivi(file, PARTITE);
+
+        assertPartite(PARTITE, leggi(file));
+    }
+
+    @Test
+    void ignora_un_record_troncato_e_scrive_dopo_l_ultimo_completo() throws IOException {
+        var file = cartella.resolve("storico.bin");
+        scrivi(file, PARTITE);
+        long completo = Files.size(file);
+        // un crash a metà dell'ultimo record
+        try (var canale = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            canale.truncate(completo - 2);
+        }
+        assertPartite(PARTITE.subList(0, 2), leggi(file));
+
+        var nuova = new Partita(5, CheckType.ALL, Difficulty.HARD, Symbol.X, Symbol.X, Symbol.X, new int[]{12, 0, 13, 1, 14});
+        scrivi(file, List.of(nuova));
+
+        assertPartite(List.of(PARTITE.get(0), PARTITE.get(1), nuova), leggi(file));
+        assertEquals(completo - StoricoPartite.codifica(PARTITE.get(2)).length + StoricoPartite.codifica(nuova).length,
+                Files.size(file));
+    }
+
+    @Test
+    void una_lunghezza_corrotta_non_tronca_lo_storico() throws IOException {
+        var file = cartella.resolve("storico.bin");
+        scrivi(file, PARTITE);
+        long dimensione = Files.size(file);
+        // la lunghezza del secondo record diventa un varint di 16383 byte, oltre il corpo più lungo
+        long secondo = 5 + StoricoPartite.codifica(PARTITE.get(0)).length;
+        try (var canale = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            canale.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF, 0x7F}), secondo);
+        }
+        assertThrows(IOException.class, () -> leggi(file));
+
+        // la scrittura dopo non ripara togliendo i record validi
+        scrivi(file, List.of(PARTITE.get(0)));
+        assertEquals(dimensione, Files.size(file));
+    }
+
+    @Test
+    void un_varint_oltre_31_bit_e_un_errore() throws IOException {
+        var file = cartella.resolve("storico.bin");
+        scrivi(file, PARTITE);
+        try (var canale = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            canale.write(ByteBuffer.wrap(new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x7F}), 5);
+        }
+        assertThrows(IOException.class, () -> leggi(file));
+    }
+
+    //ogni storico è una nuova apertura del file, come al riavvio dell'applicazione
+    private static void scrivi(Path file, List<Partita> partite) {
+        try (var storico = new StoricoPartite(file)) {
+            partite.forEach(storico::aggiungi);
+        }
+    }
+
+    private static List<Partita> leggi(Path file) throws IOException {
+        List<Partita> lette = new ArrayList<>();
+        try (var storico = new StoricoPartite(file)) {
+            long numero = storico.scorri(lette::add);
+            assertEquals(lette.size(), numero);
+        }
+        return lette;
+    }
+
+    private static void assertPartite(List<Partita> attese, List<Partita> lette) {
+        assertEquals(attese.size(), lette.size());
+        for (int i = 0; i < attese.size(); i++) {
+            var attesa = attese.get(i);
+            var letta = lette.get(i);
+            assertEquals(attesa.size(), letta.size());
+            assertEquals(attesa.checkType(), letta.checkType());
+            assertEquals(attesa.difficulty(), letta.difficulty());
+            assertEquals(attesa.simboloPlayer(), letta.simboloPlayer());
+            assertEquals(attesa.primo(), letta.primo());
+            assertEquals(attesa.vincitore(), letta.vincitore());
+            assertArrayEquals(attesa.mosse(), letta.mosse());
+        }
+    }
+}
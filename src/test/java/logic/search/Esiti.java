@@ -0,0 +1,43 @@
+package logic.search;
+
+import logic.GameState;
+import logic.enums.Symbol;
+
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Outcomes of the perfect-play tables ({@link TabellaPerfetta#VITTORIA}, {@link TabellaPerfetta#PAREGGIO},
+ * {@link TabellaPerfetta#SCONFITTA}) shared by the tests of {@link TabellaPerfetta} and {@link Tabella4x4}
+ */
+final class Esiti {
+    private Esiti() {
+    }
+
+    /**
+     * @return the outcome of a score of {@link Negamax}
+     */
+    static int esito(int punteggio) {
+        return punteggio > 0 ? TabellaPerfetta.VITTORIA : punteggio < 0 ? TabellaPerfetta.SCONFITTA : TabellaPerfetta.PAREGGIO;
+    }
+
+    /**
+     * @param tabella outcome of a position for the side to move, as given by the table
+     * @return the outcome of the move for the side that plays it
+     */
+    static int esitoDopo(GameState stato, int mossa, Symbol turno, ToIntBiFunction<GameState, Symbol> tabella) {
+        stato.move(mossa);
+        try {
+            if (stato.haVinto(turno, mossa))
+                return TabellaPerfetta.VITTORIA;
+            if (stato.isFull())
+                return TabellaPerfetta.PAREGGIO;
+            return switch (tabella.applyAsInt(stato, stato.getTurno())) {
+                case TabellaPerfetta.VITTORIA -> TabellaPerfetta.SCONFITTA;
+                case TabellaPerfetta.SCONFITTA -> TabellaPerfetta.VITTORIA;
+                default -> TabellaPerfetta.PAREGGIO;
+            };
+        } finally {
+            stato.undo();
+        }
+    }
+}
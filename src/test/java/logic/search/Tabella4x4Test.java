@@ -0,0 +1,71 @@
+package logic.search;
+
+import logic.GameState;
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class Tabella4x4Test {
+    private static final int PARTITE = 100;
+    private static final int MOSSE_MINIME = 6;
+
+    @TempDir
+    Path cartella;
+
+    @Test
+    void senza_file_la_tabella_e_vuota() {
+        var tabella = Tabella4x4.carica(cartella.resolve("mancante.bin"));
+        assertFalse(tabella.isDisponibile(), "tabella disponibile senza file");
+        assertEquals(-1, tabella.mossa(new GameState(4, CheckType.ALL), Symbol.X));
+    }
+
+    @Test
+    void solo_il_check_type_risolto_e_nella_tabella() {
+        var tabella = Tabella4x4.inMemoria(CheckType.HORIZONTAL);
+        assertEquals(-1, tabella.mossa(new GameState(4, CheckType.VERTICALE), Symbol.X));
+        assertNotEquals(-1, tabella.mossa(new GameState(4, CheckType.HORIZONTAL), Symbol.X), "posizione vuota non trovata");
+    }
+
+    @Test
+    void esiti_e_mosse_uguali_a_negamax() {
+        var random = new SplittableRandom(4);
+        // una tabella alla volta, risolta in memoria senza scrivere il file
+        for (var checkType : CheckType.values()) {
+            var tabella = Tabella4x4.inMemoria(checkType);
+            var stato = new GameState(4, checkType);
+            for (int partita = 0; partita < PARTITE; partita++) {
+                if (!posizioneCasuale(stato, random))
+                    continue;
+                var turno = stato.getTurno();
+                int esito = tabella.esito(stato, turno);
+                int punteggio = new Negamax().cerca(stato, turno, stato.getCelle() - stato.getNumeroMosse()).punteggio();
+                assertEquals(Esiti.esito(punteggio), esito, "esito di " + Arrays.toString(stato.getMosse()) + " " + checkType);
+
+                int mossa = tabella.mossa(stato, turno);
+                assertTrue(mossa != -1 && stato.isEmpty(mossa), "mossa non valida " + mossa);
+                assertEquals(esito, Esiti.esitoDopo(stato, mossa, turno, tabella::esito), "la mossa della tabella cambia l'esito");
+            }
+        }
+    }
+
+    //da MOSSE_MINIME a MOSSE_MINIME + 5 mosse a caso, false se la partita è finita prima
+    private static boolean posizioneCasuale(GameState stato, SplittableRandom random) {
+        stato.reset();
+        int mosse = MOSSE_MINIME + random.nextInt(6);
+        for (int i = 0; i < mosse; i++) {
+            var turno = stato.getTurno();
+            int cella = stato.casellaCasuale(random);
+            stato.move(cella);
+            if (stato.haVinto(turno, cella) || stato.isFull())
+                return false;
+        }
+        return true;
+    }
+}
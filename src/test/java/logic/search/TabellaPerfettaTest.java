@@ -0,0 +1,61 @@
+package logic.search;
+
+import logic.GameState;
+import logic.enums.CheckType;
+import logic.enums.Symbol;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TabellaPerfettaTest {
+    private final TabellaPerfetta tabella = TabellaPerfetta.risolvi();
+
+    @Test
+    void ogni_posizione_aperta_da_O_e_nella_tabella() {
+        for (var checkType : CheckType.values()) {
+            var stato = new GameState(3, checkType);
+            stato.setTurno(Symbol.O);
+            visita(stato, true, new HashSet<>());
+        }
+    }
+
+    @Test
+    void esiti_e_mosse_uguali_a_negamax() {
+        for (var checkType : CheckType.values()) {
+            for (var primo : new Symbol[]{Symbol.X, Symbol.O}) {
+                var stato = new GameState(3, checkType);
+                stato.setTurno(primo);
+                visita(stato, false, new HashSet<>());
+            }
+        }
+    }
+
+    //tutte le posizioni raggiungibili e non finite, ognuna una volta, controllate con la tabella
+    private void visita(GameState stato, boolean soloPresenza, Set<Long> visitate) {
+        if (!visitate.add(stato.getHash()))
+            return;
+        var turno = stato.getTurno();
+        int mossa = tabella.mossa(stato, turno);
+        assertNotEquals(-1, mossa, "posizione non trovata dopo " + Arrays.toString(stato.getMosse()));
+        assertTrue(stato.isEmpty(mossa), "mossa su una casella occupata");
+        if (!soloPresenza) {
+            int esito = tabella.esito(stato, turno);
+            int punteggio = new Negamax().cerca(stato, turno, stato.getCelle() - stato.getNumeroMosse()).punteggio();
+            assertEquals(Esiti.esito(punteggio), esito, "esito di " + Arrays.toString(stato.getMosse()) + " " + stato.getCheckType());
+            assertEquals(esito, Esiti.esitoDopo(stato, mossa, turno, tabella::esito), "la mossa della tabella cambia l'esito");
+        }
+
+        for (int cella = 0; cella < stato.getCelle(); cella++) {
+            if (!stato.isEmpty(cella))
+                continue;
+            stato.move(cella);
+            if (!stato.haVinto(turno, cella) && !stato.isFull())
+                visita(stato, soloPresenza, visitate);
+            stato.undo();
+        }
+    }
+}